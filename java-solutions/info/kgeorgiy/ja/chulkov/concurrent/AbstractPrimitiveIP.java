@@ -0,0 +1,34 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism.Range;
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism.TerminatingMapper;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Base of primitive array companions of {@link IterativeParallelism}. Splits arrays into the same buckets as
+ * {@link IterativeParallelism} and runs one task per bucket.
+ */
+abstract class AbstractPrimitiveIP {
+
+    private final TerminatingMapper mapper;
+
+    AbstractPrimitiveIP(final TerminatingMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Runs {@code task} for every bucket of array of specified length.
+     *
+     * @param threads number of concurrent threads
+     * @param length  length of array
+     * @param task    task to run on bucket bounds
+     * @param <R>     type of bucket result
+     * @return results of buckets in order
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    protected <R> List<R> mapRanges(final int threads, final int length, final Function<Range, R> task)
+            throws InterruptedException {
+        return mapper.baseMap(task, IterativeParallelism.generateRanges(threads, length), new CancellationToken());
+    }
+}
@@ -0,0 +1,26 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+/**
+ * Flag for cooperative cancellation of parallel tasks. Tasks check it periodically and stop as soon as it is
+ * cancelled.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Cancels all tasks, that observe this token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether this token was cancelled.
+     *
+     * @return {@code true} if {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,145 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism.TerminatingMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.stream.DoubleStream;
+
+/**
+ * {@code double[]} companion of {@link IterativeParallelism}. Works on array ranges without boxing elements.
+ */
+public class DoubleIP extends AbstractPrimitiveIP {
+
+    DoubleIP(final TerminatingMapper mapper) {
+        super(mapper);
+    }
+
+    /**
+     * Returns maximum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get maximum of
+     * @return maximum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public double maximum(final int threads, final double[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.max().orElseThrow()).stream()
+                .mapToDouble(Double::doubleValue)
+                .max()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns minimum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get minimum of
+     * @return minimum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public double minimum(final int threads, final double[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.min().orElseThrow()).stream()
+                .mapToDouble(Double::doubleValue)
+                .min()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to test
+     * @param predicate test predicate
+     * @return number of values satisfying predicate
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int count(final int threads, final double[] values, final DoublePredicate predicate)
+            throws InterruptedException {
+        return map(threads, values, stream -> (int) stream.filter(predicate).count()).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Returns sum of values. Sums of buckets are computed with compensated summation.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to sum
+     * @return sum of given values
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public double sum(final int threads, final double[] values) throws InterruptedException {
+        return map(threads, values, DoubleStream::sum).stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
+    }
+
+    /**
+     * Reduces values using monoid.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link Monoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public double reduce(final int threads, final double[] values, final Monoid monoid)
+            throws InterruptedException {
+        return map(threads, values, stream -> stream.reduce(monoid.identity(), monoid.operator())).stream()
+                .mapToDouble(Double::doubleValue)
+                .reduce(monoid.identity(), monoid.operator());
+    }
+
+    /**
+     * Filters values by predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to filter
+     * @param predicate filter predicate
+     * @return array of values satisfying given predicate. Order of values is preserved
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public double[] filter(final int threads, final double[] values, final DoublePredicate predicate)
+            throws InterruptedException {
+        final List<double[]> parts = map(threads, values, stream -> stream.filter(predicate).toArray());
+        final double[] result = new double[parts.stream().mapToInt(part -> part.length).sum()];
+        int position = 0;
+        for (final double[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private <R> List<R> map(final int threads, final double[] values, final Function<DoubleStream, R> task)
+            throws InterruptedException {
+        Objects.requireNonNull(values);
+        return mapRanges(threads, values.length,
+                range -> task.apply(Arrays.stream(values, range.from(), range.to())));
+    }
+
+    /**
+     * Monoid over {@code double} values.
+     *
+     * @param identity identity element
+     * @param operator associative operator
+     */
+    public record Monoid(double identity, DoubleBinaryOperator operator) {
+
+        /**
+         * Creates monoid.
+         *
+         * @param identity identity element
+         * @param operator associative operator
+         */
+        public Monoid {
+            Objects.requireNonNull(operator);
+        }
+    }
+}
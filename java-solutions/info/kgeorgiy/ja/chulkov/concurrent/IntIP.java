@@ -0,0 +1,144 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism.TerminatingMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * {@code int[]} companion of {@link IterativeParallelism}. Works on array ranges without boxing elements.
+ */
+public class IntIP extends AbstractPrimitiveIP {
+
+    IntIP(final TerminatingMapper mapper) {
+        super(mapper);
+    }
+
+    /**
+     * Returns maximum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get maximum of
+     * @return maximum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public int maximum(final int threads, final int[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.max().orElseThrow()).stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns minimum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get minimum of
+     * @return minimum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public int minimum(final int threads, final int[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.min().orElseThrow()).stream()
+                .mapToInt(Integer::intValue)
+                .min()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to test
+     * @param predicate test predicate
+     * @return number of values satisfying predicate
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int count(final int threads, final int[] values, final IntPredicate predicate)
+            throws InterruptedException {
+        return map(threads, values, stream -> (int) stream.filter(predicate).count()).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Returns sum of values. Sum is computed in {@code long}, so it does not overflow on large arrays.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to sum
+     * @return sum of given values
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public long sum(final int threads, final int[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.asLongStream().sum()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Reduces values using monoid.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link Monoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int reduce(final int threads, final int[] values, final Monoid monoid) throws InterruptedException {
+        return map(threads, values, stream -> stream.reduce(monoid.identity(), monoid.operator())).stream()
+                .mapToInt(Integer::intValue)
+                .reduce(monoid.identity(), monoid.operator());
+    }
+
+    /**
+     * Filters values by predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to filter
+     * @param predicate filter predicate
+     * @return array of values satisfying given predicate. Order of values is preserved
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int[] filter(final int threads, final int[] values, final IntPredicate predicate)
+            throws InterruptedException {
+        final List<int[]> parts = map(threads, values, stream -> stream.filter(predicate).toArray());
+        final int[] result = new int[parts.stream().mapToInt(part -> part.length).sum()];
+        int position = 0;
+        for (final int[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private <R> List<R> map(final int threads, final int[] values, final Function<IntStream, R> task)
+            throws InterruptedException {
+        Objects.requireNonNull(values);
+        return mapRanges(threads, values.length,
+                range -> task.apply(Arrays.stream(values, range.from(), range.to())));
+    }
+
+    /**
+     * Monoid over {@code int} values.
+     *
+     * @param identity identity element
+     * @param operator associative operator
+     */
+    public record Monoid(int identity, IntBinaryOperator operator) {
+
+        /**
+         * Creates monoid.
+         *
+         * @param identity identity element
+         * @param operator associative operator
+         */
+        public Monoid {
+            Objects.requireNonNull(operator);
+        }
+    }
+}
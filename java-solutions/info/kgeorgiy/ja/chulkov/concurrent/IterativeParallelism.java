@@ -6,8 +6,19 @@ import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -20,6 +31,8 @@ import java.util.stream.Stream;
 public class IterativeParallelism implements AdvancedIP {
 
     private final TerminatingMapper mapper;
+    private final ForkJoinPool forkJoinPool;
+    private final int leafSize;
 
     /**
      * Constructs new {@link IterativeParallelism} by {@link ParallelMapper}. Uses {@link ParallelMapper} to run
@@ -30,19 +43,74 @@ public class IterativeParallelism implements AdvancedIP {
     public IterativeParallelism(final ParallelMapper parallelMapper) {
         this.mapper = new TerminatingMapper() {
             @Override
-            public <T, R> List<R> baseMap(final Function<Stream<T>, R> threadTask,
-                    final Predicate<R> terminateExecutionPredicate,
-                    final List<Stream<T>> subValuesStreams) throws InterruptedException {
-                return parallelMapper.map(threadTask, subValuesStreams);
+            public <T, R> List<R> baseMap(final Function<T, R> threadTask,
+                    final List<T> subTasks,
+                    final CancellationToken token) throws InterruptedException {
+                if (parallelMapper instanceof final ParallelMapperImpl parallelMapperImpl) {
+                    return parallelMapperImpl.map(threadTask, subTasks, token);
+                }
+                return parallelMapper.map(threadTask, subTasks);
             }
         };
+        this.forkJoinPool = null;
+        this.leafSize = 0;
     }
 
     /**
-     * Creates default realisation of {@link IterativeParallelism}
+     * Creates default realisation of {@link IterativeParallelism}. Starts new platform thread for every sub-task.
      */
     public IterativeParallelism() {
-        this.mapper = new IterativeParallelismBase();
+        this(Thread::new);
+    }
+
+    /**
+     * Creates realisation of {@link IterativeParallelism}, that runs every sub-task in a new thread created by
+     * {@code threadFactory}. Threads are interrupted and joined the same way as in the default realisation.
+     *
+     * @param threadFactory factory of threads for sub-tasks
+     */
+    public IterativeParallelism(final ThreadFactory threadFactory) {
+        this.mapper = new IterativeParallelismBase(Objects.requireNonNull(threadFactory));
+        this.forkJoinPool = null;
+        this.leafSize = 0;
+    }
+
+    /**
+     * Creates realisation of {@link IterativeParallelism}, that runs tasks in {@code forkJoinPool}.
+     * {@link #map}, {@link #filter}, {@link #reduce}, {@link #mapReduce} and operations based on them ignore number of
+     * threads and recursively split values into ranges of at most {@code leafSize} elements, so idle workers of the
+     * pool steal ranges of busy ones. Other operations split values into {@code threads} sub-tasks as usual.
+     *
+     * @param forkJoinPool pool to run tasks in
+     * @param leafSize     maximal number of elements processed by one task without splitting
+     */
+    public IterativeParallelism(final ForkJoinPool forkJoinPool, final int leafSize) {
+        if (leafSize <= 0) {
+            throw new IllegalArgumentException("Leaf size must be positive");
+        }
+        this.forkJoinPool = Objects.requireNonNull(forkJoinPool);
+        this.leafSize = leafSize;
+        this.mapper = new TerminatingMapper() {
+            @Override
+            public <T, R> List<R> baseMap(final Function<T, R> threadTask,
+                    final List<T> subTasks,
+                    final CancellationToken token) throws InterruptedException {
+                return awaitAll(subTasks.stream()
+                        .map(subTask -> forkJoinPool.submit(
+                                () -> token.isCancelled() ? null : threadTask.apply(subTask)))
+                        .toList(), token);
+            }
+        };
+    }
+
+    /**
+     * Creates realisation of {@link IterativeParallelism}, that runs every sub-task in a new virtual thread. Virtual
+     * threads are cheap to start, so this realisation suits frequent calls on small lists.
+     *
+     * @return {@link IterativeParallelism} running sub-tasks on virtual threads
+     */
+    public static IterativeParallelism ofVirtualThreads() {
+        return new IterativeParallelism(Thread.ofVirtual().factory());
     }
 
     static void checkThreads(final int threads) {
@@ -59,19 +127,53 @@ public class IterativeParallelism implements AdvancedIP {
         return stream -> stream.map(f).reduce(monoid.getIdentity(), monoid.getOperator());
     }
 
-    static <T> List<Stream<T>> generateSubValuesStreams(final int threads, final List<T> values) {
-        checkArguments(threads, values);
-        final int bucketSize = values.size() / threads;
-        int rest = values.size() % threads;
+    static List<Range> generateRanges(final int threads, final int size) {
+        checkThreads(threads);
+        final int bucketSize = size / threads;
+        int rest = size % threads;
         final int buckets = bucketSize == 0 ? rest : threads;
         int start = 0;
-        final List<Stream<T>> subValuesList = new ArrayList<>(buckets);
+        final List<Range> ranges = new ArrayList<>(buckets);
         for (int i = 0; i < buckets; i++) {
             final int step = bucketSize + (--rest >= 0 ? 1 : 0);
-            subValuesList.add(values.subList(start, start + step).stream());
+            ranges.add(new Range(start, start + step));
             start += step;
         }
-        return subValuesList;
+        return ranges;
+    }
+
+    static <T> List<Stream<T>> generateSubValuesStreams(final int threads, final List<T> values) {
+        checkArguments(threads, values);
+        return generateRanges(threads, values.size()).stream()
+                .map(range -> values.subList(range.from(), range.to()).stream())
+                .toList();
+    }
+
+    /**
+     * Returns {@code int[]} companion of this {@link IterativeParallelism}, that runs tasks the same way.
+     *
+     * @return {@link IntIP} sharing execution mode with this object
+     */
+    public IntIP ints() {
+        return new IntIP(mapper);
+    }
+
+    /**
+     * Returns {@code long[]} companion of this {@link IterativeParallelism}, that runs tasks the same way.
+     *
+     * @return {@link LongIP} sharing execution mode with this object
+     */
+    public LongIP longs() {
+        return new LongIP(mapper);
+    }
+
+    /**
+     * Returns {@code double[]} companion of this {@link IterativeParallelism}, that runs tasks the same way.
+     *
+     * @return {@link DoubleIP} sharing execution mode with this object
+     */
+    public DoubleIP doubles() {
+        return new DoubleIP(mapper);
     }
 
     @Override
@@ -99,9 +201,14 @@ public class IterativeParallelism implements AdvancedIP {
 
     @Override
     public String join(final int threads, final List<?> values) throws InterruptedException {
-        return mapReduce(threads, values,
-                Objects::toString,
-                new Monoid<>("", String::concat)
+        // Every sub-task appends to its own builder; String.join sums lengths of parts and copies them once
+        return taskSchemaWithoutTerminating(threads, values,
+                stream -> {
+                    final StringBuilder builder = new StringBuilder();
+                    stream.forEach(value -> builder.append(value));
+                    return builder.toString();
+                },
+                stream -> String.join("", stream.toList())
         );
     }
 
@@ -137,13 +244,177 @@ public class IterativeParallelism implements AdvancedIP {
         return taskSchema(threads, values,
                 val -> val.allMatch(predicate),
                 it -> !it,
+                false,
                 stream -> stream.allMatch(Boolean::booleanValue));
     }
 
+    /**
+     * Returns first value, that satisfies predicate. Sub-tasks after the leftmost found value stop as soon as it is
+     * found.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to search in
+     * @param predicate test predicate
+     * @param <T>       value type
+     * @return first value satisfying predicate or empty {@link Optional} if there is no such value
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> Optional<T> findFirst(final int threads, final List<? extends T> values,
+            final Predicate<? super T> predicate) throws InterruptedException {
+        return taskSchema(threads, Collections.<T>unmodifiableList(values),
+                val -> val.filter(predicate).findFirst(),
+                Optional::isPresent,
+                true,
+                stream -> stream.flatMap(Optional::stream).findFirst());
+    }
+
+    /**
+     * Returns values sorted by comparator. Every sub-task sorts its part of values, then sorted parts are merged. Sort
+     * is stable.
+     *
+     * @param threads    number of concurrent threads
+     * @param values     values to sort
+     * @param comparator value comparator
+     * @param <T>        value type
+     * @return sorted list of values
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> List<T> sorted(final int threads, final List<? extends T> values,
+            final Comparator<? super T> comparator) throws InterruptedException {
+        Objects.requireNonNull(comparator);
+        return taskSchemaWithoutTerminating(threads, Collections.<T>unmodifiableList(values),
+                stream -> {
+                    final List<T> part = stream.collect(Collectors.toCollection(ArrayList::new));
+                    part.sort(comparator);
+                    return part;
+                },
+                stream -> merge(stream.toList(), comparator));
+    }
+
+    /**
+     * Returns {@code k} maximal values in descending order. Every sub-task keeps {@code k} maximal values of its part
+     * in a bounded heap, so values are scanned once.
+     *
+     * @param threads    number of concurrent threads
+     * @param values     values to search in
+     * @param k          number of values to return
+     * @param comparator value comparator
+     * @param <T>        value type
+     * @return list of at most {@code k} maximal values, starting from the maximum
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> List<T> topK(final int threads, final List<? extends T> values, final int k,
+            final Comparator<? super T> comparator) throws InterruptedException {
+        Objects.requireNonNull(comparator);
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        return taskSchemaWithoutTerminating(threads, Collections.<T>unmodifiableList(values),
+                stream -> topK(stream, k, comparator),
+                stream -> topK(stream.flatMap(List::stream), k, comparator));
+    }
+
+    /**
+     * Returns {@code k} minimal values in ascending order, like {@link #topK} with reversed comparator.
+     *
+     * @param threads    number of concurrent threads
+     * @param values     values to search in
+     * @param k          number of values to return
+     * @param comparator value comparator
+     * @param <T>        value type
+     * @return list of at most {@code k} minimal values, starting from the minimum
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> List<T> bottomK(final int threads, final List<? extends T> values, final int k,
+            final Comparator<? super T> comparator) throws InterruptedException {
+        return topK(threads, values, k, comparator.reversed());
+    }
+
+    private static <T> List<T> topK(final Stream<T> stream, final int k, final Comparator<? super T> comparator) {
+        if (k == 0) {
+            return new ArrayList<>();
+        }
+        // Heap root is the least of kept values, so a new value either replaces it or is dropped
+        final PriorityQueue<T> heap = new PriorityQueue<>(comparator);
+        stream.forEach(value -> {
+            if (heap.size() < k) {
+                heap.add(value);
+            } else if (comparator.compare(value, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(value);
+            }
+        });
+        final List<T> result = new ArrayList<>(heap);
+        result.sort(comparator.reversed());
+        return result;
+    }
+
+    private static <T> List<T> merge(final List<List<T>> parts, final Comparator<? super T> comparator) {
+        if (parts.size() <= 1) {
+            return parts.isEmpty() ? new ArrayList<>() : parts.get(0);
+        }
+        // Cursors are ordered by their current values, ties by part index to keep the merge stable
+        final PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(parts.size(),
+                Comparator.<Cursor<T>, T>comparing(Cursor::current, comparator).thenComparingInt(Cursor::part));
+        int size = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            size += parts.get(i).size();
+            if (!parts.get(i).isEmpty()) {
+                cursors.add(new Cursor<>(i, parts.get(i).iterator()));
+            }
+        }
+        final List<T> result = new ArrayList<>(size);
+        while (!cursors.isEmpty()) {
+            final Cursor<T> cursor = cursors.poll();
+            result.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    private static class Cursor<T> {
+
+        private final int part;
+        private final Iterator<T> iterator;
+        private T current;
+
+        private Cursor(final int part, final Iterator<T> iterator) {
+            this.part = part;
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+
+        private int part() {
+            return part;
+        }
+
+        private T current() {
+            return current;
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+
     private  <T, R> List<R> flatStreamOperationSchema(
             final int threads, final List<? extends T> values,
             final Function<Stream<? extends T>, Stream<? extends R>> operation
     ) throws InterruptedException {
+        if (forkJoinPool != null) {
+            return forkJoinSchema(threads, values,
+                    stream -> operation.apply(stream).collect(Collectors.<R, List<R>>toCollection(ArrayList::new)),
+                    (left, right) -> {
+                        left.addAll(right);
+                        return left;
+                    });
+        }
         return taskSchemaWithoutTerminating(threads, values,
                 stream -> operation.apply(stream).collect(Collectors.toList()),
                 stream -> stream.flatMap(List::stream).collect(Collectors.toList()));
@@ -152,24 +423,54 @@ public class IterativeParallelism implements AdvancedIP {
     @Override
     public <T, R> R mapReduce(final int threads, final List<T> values, final Function<T, R> lift,
             final Monoid<R> monoid) throws InterruptedException {
+        if (forkJoinPool != null) {
+            return forkJoinSchema(threads, values, streamMapReduceReduce(monoid, lift), monoid.getOperator());
+        }
         return taskSchemaWithoutTerminating(threads, values,
                 streamMapReduceReduce(monoid, lift),
                 streamMapReduceReduce(monoid, Function.identity())
         );
     }
 
-    private  <T, R> R taskSchema(
+    /**
+     * Runs {@code threadTask} on sub-streams of values. When result of some sub-task satisfies
+     * {@code terminateExecutionPredicate}, other sub-tasks stop reading their sub-streams and not started sub-tasks
+     * are skipped. If {@code ordered}, only sub-tasks to the right of the leftmost terminating one are stopped.
+     */
+    private  <T, R, A> A taskSchema(
             final int threads,
             final List<T> values,
             final Function<Stream<T>, R> threadTask,
             final Predicate<R> terminateExecutionPredicate,
-            final Function<Stream<R>, R> collectorFunction
+            final boolean ordered,
+            final Function<Stream<R>, A> collectorFunction
     ) throws InterruptedException {
+        final List<Stream<T>> subValuesStreams = generateSubValuesStreams(threads, values);
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger leftmostTerminated = new AtomicInteger(Integer.MAX_VALUE);
+        final Predicate<Integer> stopped = ordered
+                ? index -> leftmostTerminated.get() < index
+                : index -> token.isCancelled();
+        final List<SubTask<T>> subTasks = IntStream.range(0, subValuesStreams.size())
+                .mapToObj(index -> new SubTask<>(index, subValuesStreams.get(index)))
+                .toList();
+        // Only sub-tasks skipped through the token have no result, failed ones are rethrown by baseMap
         return collectorFunction.apply(mapper.baseMap(
-                threadTask,
-                terminateExecutionPredicate,
-                generateSubValuesStreams(threads, values)
-        ).stream());
+                subTask -> {
+                    final R result = threadTask.apply(
+                            subTask.stream().takeWhile(it -> !stopped.test(subTask.index())));
+                    if (terminateExecutionPredicate.test(result)) {
+                        if (ordered) {
+                            leftmostTerminated.accumulateAndGet(subTask.index(), Math::min);
+                        } else {
+                            token.cancel();
+                        }
+                    }
+                    return result;
+                },
+                subTasks,
+                token
+        ).stream().filter(Objects::nonNull));
     }
 
     private  <T, R> R taskSchemaWithoutTerminating(
@@ -178,49 +479,134 @@ public class IterativeParallelism implements AdvancedIP {
             final Function<Stream<T>, R> threadTask,
             final Function<Stream<R>, R> collectorFunction
     ) throws InterruptedException {
-        return taskSchema(threads, values, threadTask, r -> false, collectorFunction);
+        final CancellationToken token = new CancellationToken();
+        return collectorFunction.apply(mapper.baseMap(
+                threadTask,
+                generateSubValuesStreams(threads, values),
+                token
+        ).stream());
+    }
+
+    private <T, R> R forkJoinSchema(
+            final int threads,
+            final List<T> values,
+            final Function<Stream<T>, R> leafTask,
+            final BinaryOperator<R> combiner
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        final CancellationToken token = new CancellationToken();
+        return awaitAll(List.of(forkJoinPool.submit(
+                new RangeTask<>(values, 0, values.size(), leafSize, leafTask, combiner, token)
+        )), token).get(0);
     }
+
+    private static <R> List<R> awaitAll(final List<? extends Future<R>> futures, final CancellationToken token)
+            throws InterruptedException {
+        final List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (final Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (final InterruptedException e) {
+            token.cancel();
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof final Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private record SubTask<T>(int index, Stream<T> stream) {
+    }
+
+    // Tasks are never serialized, Serializable is inherited from ForkJoinTask
+    @SuppressWarnings("serial")
+    private static class RangeTask<T, R> extends RecursiveTask<R> {
+
+        private final List<T> values;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Function<Stream<T>, R> leafTask;
+        private final BinaryOperator<R> combiner;
+        private final CancellationToken token;
+
+        private RangeTask(final List<T> values, final int from, final int to, final int leafSize,
+                final Function<Stream<T>, R> leafTask, final BinaryOperator<R> combiner,
+                final CancellationToken token) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.leafTask = leafTask;
+            this.combiner = combiner;
+            this.token = token;
+        }
+
+        @Override
+        protected R compute() {
+            if (token.isCancelled()) {
+                throw new CancellationException();
+            }
+            if (to - from <= leafSize) {
+                return leafTask.apply(values.subList(from, to).stream());
+            }
+            final int middle = (from + to) >>> 1;
+            final RangeTask<T, R> right = new RangeTask<>(values, middle, to, leafSize, leafTask, combiner, token);
+            right.fork();
+            final R left = new RangeTask<>(values, from, middle, leafSize, leafTask, combiner, token).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+
+    record Range(int from, int to) {
+    }
+
     @FunctionalInterface
-    private interface TerminatingMapper {
+    interface TerminatingMapper {
         <T, R> List<R> baseMap(
-                Function<Stream<T>, R> threadTask,
-                Predicate<R> terminateExecutionPredicate,
-                List<Stream<T>> subValuesStreams
+                Function<T, R> threadTask,
+                List<T> subTasks,
+                CancellationToken token
         ) throws InterruptedException;
     }
 
     private static class IterativeParallelismBase implements TerminatingMapper {
 
+        private final ThreadFactory threadFactory;
+
+        private IterativeParallelismBase(final ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
         public  <T, R> List<R> baseMap(
-                final Function<Stream<T>, R> threadTask,
-                final Predicate<R> terminateExecutionPredicate,
-                final List<Stream<T>> subValuesStreams
+                final Function<T, R> threadTask,
+                final List<T> subTasks,
+                final CancellationToken token
         ) throws InterruptedException {
-            final VolatileBoolean terminated = new VolatileBoolean(false);
-            final List<R> results = new ArrayList<>(Collections.nCopies(subValuesStreams.size(), null));
-            final List<Thread> threadList = IntStream.range(0, subValuesStreams.size())
-                    .mapToObj(it -> new Thread(() -> {
-                        final var result = threadTask.apply(subValuesStreams.get(it));
-                        results.set(it, result);
-                        if (terminateExecutionPredicate.test(result)) {
-                            terminated.set(true);
+            final List<R> results = new ArrayList<>(Collections.nCopies(subTasks.size(), null));
+            final Throwable[] failures = new Throwable[subTasks.size()];
+            final List<Thread> threadList = IntStream.range(0, subTasks.size())
+                    .mapToObj(it -> threadFactory.newThread(() -> {
+                        try {
+                            results.set(it, threadTask.apply(subTasks.get(it)));
+                        } catch (final RuntimeException | Error e) {
+                            failures[it] = e;
+                            token.cancel();
                         }
-                    }
-                    ))
+                    }))
                     .peek(Thread::start)
                     .toList();
 
-            boolean reallyTerminated = false;
-
             InterruptedException exception = null;
             for (final Thread thread : threadList) {
-                if (!reallyTerminated && terminated.isTrue()) {
-                    if (terminated.isTrue()) {
-                        threadList.forEach(Thread::interrupt);
-                    }
-                    reallyTerminated = true;
-                }
-
                 boolean joined = false;
                 while (!joined) {
                     try {
@@ -228,9 +614,8 @@ public class IterativeParallelism implements AdvancedIP {
                         joined = true;
                     } catch (final InterruptedException e) {
                         if (exception == null) {
-                            if (!reallyTerminated) {
-                                threadList.forEach(Thread::interrupt);
-                            }
+                            token.cancel();
+                            threadList.forEach(Thread::interrupt);
                             exception = e;
                         } else {
                             exception.addSuppressed(e);
@@ -242,25 +627,23 @@ public class IterativeParallelism implements AdvancedIP {
             if (exception != null) {
                 throw exception;
             }
+            // Failures are visible after joins, the same way as results
+            Throwable failure = null;
+            for (final Throwable e : failures) {
+                if (failure == null) {
+                    failure = e;
+                } else if (e != null) {
+                    failure.addSuppressed(e);
+                }
+            }
+            if (failure instanceof final RuntimeException e) {
+                throw e;
+            }
+            if (failure instanceof final Error e) {
+                throw e;
+            }
             return results;
         }
 
     }
-
-    private static class VolatileBoolean {
-
-        private volatile boolean bool;
-
-        public VolatileBoolean(final boolean bool) {
-            this.bool = bool;
-        }
-
-        public boolean isTrue() {
-            return bool;
-        }
-
-        public void set(final boolean bool) {
-            this.bool = bool;
-        }
-    }
 }
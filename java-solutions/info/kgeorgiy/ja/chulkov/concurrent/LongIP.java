@@ -0,0 +1,144 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism.TerminatingMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+/**
+ * {@code long[]} companion of {@link IterativeParallelism}. Works on array ranges without boxing elements.
+ */
+public class LongIP extends AbstractPrimitiveIP {
+
+    LongIP(final TerminatingMapper mapper) {
+        super(mapper);
+    }
+
+    /**
+     * Returns maximum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get maximum of
+     * @return maximum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public long maximum(final int threads, final long[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.max().orElseThrow()).stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns minimum value.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to get minimum of
+     * @return minimum of given values
+     * @throws InterruptedException             if executing thread was interrupted
+     * @throws java.util.NoSuchElementException if no values are given
+     */
+    public long minimum(final int threads, final long[] values) throws InterruptedException {
+        return map(threads, values, stream -> stream.min().orElseThrow()).stream()
+                .mapToLong(Long::longValue)
+                .min()
+                .orElseThrow();
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to test
+     * @param predicate test predicate
+     * @return number of values satisfying predicate
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int count(final int threads, final long[] values, final LongPredicate predicate)
+            throws InterruptedException {
+        return map(threads, values, stream -> (int) stream.filter(predicate).count()).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Returns sum of values.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to sum
+     * @return sum of given values
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public long sum(final int threads, final long[] values) throws InterruptedException {
+        return map(threads, values, LongStream::sum).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Reduces values using monoid.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link Monoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public long reduce(final int threads, final long[] values, final Monoid monoid) throws InterruptedException {
+        return map(threads, values, stream -> stream.reduce(monoid.identity(), monoid.operator())).stream()
+                .mapToLong(Long::longValue)
+                .reduce(monoid.identity(), monoid.operator());
+    }
+
+    /**
+     * Filters values by predicate.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to filter
+     * @param predicate filter predicate
+     * @return array of values satisfying given predicate. Order of values is preserved
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public long[] filter(final int threads, final long[] values, final LongPredicate predicate)
+            throws InterruptedException {
+        final List<long[]> parts = map(threads, values, stream -> stream.filter(predicate).toArray());
+        final long[] result = new long[parts.stream().mapToInt(part -> part.length).sum()];
+        int position = 0;
+        for (final long[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private <R> List<R> map(final int threads, final long[] values, final Function<LongStream, R> task)
+            throws InterruptedException {
+        Objects.requireNonNull(values);
+        return mapRanges(threads, values.length,
+                range -> task.apply(Arrays.stream(values, range.from(), range.to())));
+    }
+
+    /**
+     * Monoid over {@code long} values.
+     *
+     * @param identity identity element
+     * @param operator associative operator
+     */
+    public record Monoid(long identity, LongBinaryOperator operator) {
+
+        /**
+         * Creates monoid.
+         *
+         * @param identity identity element
+         * @param operator associative operator
+         */
+        public Monoid {
+            Objects.requireNonNull(operator);
+        }
+    }
+}
@@ -1,77 +1,541 @@
 package info.kgeorgiy.ja.chulkov.concurrent;
 
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Implementation of {@link ParallelMapper}
  */
-public class ParallelMapperImpl implements ParallelMapper {
+public class ParallelMapperImpl implements ParallelMapper, ParallelMapperMXBean {
 
-    private final SynchronizedQueue<Task<?>> tasks = new SynchronizedQueue<>();
-    private final List<Thread> threads;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final long TARGET_CHUNK_NANOS = 50_000;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final TaskQueue<Task> tasks;
+    private final Thread[] workers;
+    private final int minWorkers;
+    private final long keepAliveNanos;
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    private volatile int liveWorkers = 0;
+    private final boolean adaptiveChunking;
+    private final WorkerMetrics[] metrics;
+    private volatile boolean metricsEnabled = false;
+    private volatile ObjectName objectName = null;
+    private volatile long elementCostNanos = 0;
     private volatile boolean closed = false;
 
     /**
-     * Constructs new {@code ParallelMapperImpl} by number of workers threads.
+     * Constructs new {@code ParallelMapperImpl} by number of workers threads. All workers share one task queue.
      *
      * @param threadsNum number of thread workers in constructing {@code ParallelMapperImpl}
      */
     public ParallelMapperImpl(final int threadsNum) {
+        this(threadsNum, Scheduling.SHARED_QUEUE);
+    }
+
+    /**
+     * Constructs new {@code ParallelMapperImpl} by number of workers threads and task scheduling strategy.
+     *
+     * @param threadsNum number of thread workers in constructing {@code ParallelMapperImpl}
+     * @param scheduling strategy of distributing tasks between workers
+     */
+    public ParallelMapperImpl(final int threadsNum, final Scheduling scheduling) {
+        this(threadsNum, scheduling, false);
+    }
+
+    /**
+     * Constructs new {@code ParallelMapperImpl} by number of workers threads, task scheduling strategy and submission
+     * mode.
+     * <p>
+     * With adaptive chunking {@link #map} splits arguments into contiguous ranges instead of submitting a task per
+     * element. Range size grows with the observed per-element cost of previous calls, but never exceeds an equal share
+     * of arguments per worker. Every range publishes its results with a single synchronization.
+     *
+     * @param threadsNum       number of thread workers in constructing {@code ParallelMapperImpl}
+     * @param scheduling       strategy of distributing tasks between workers
+     * @param adaptiveChunking whether to submit ranges of arguments instead of single elements
+     */
+    public ParallelMapperImpl(final int threadsNum, final Scheduling scheduling, final boolean adaptiveChunking) {
+        this(threadsNum, scheduling, adaptiveChunking, Integer.MAX_VALUE, Admission.BLOCK);
+    }
+
+    /**
+     * Constructs new {@code ParallelMapperImpl} with bounded number of queued tasks.
+     * <p>
+     * When queue is full, {@link #map} either blocks until workers take enough tasks or throws
+     * {@link RejectedExecutionException}, depending on {@code admission}. Blocked callers are admitted in arrival order
+     * and large calls are admitted in parts, so they cannot hold the whole queue. With adaptive chunking a task is a
+     * range of arguments rather than a single argument.
+     *
+     * @param threadsNum       number of thread workers in constructing {@code ParallelMapperImpl}
+     * @param scheduling       strategy of distributing tasks between workers
+     * @param adaptiveChunking whether to submit ranges of arguments instead of single elements
+     * @param capacity         maximal number of queued tasks
+     * @param admission        behaviour of {@link #map} on full queue
+     */
+    public ParallelMapperImpl(
+            final int threadsNum,
+            final Scheduling scheduling,
+            final boolean adaptiveChunking,
+            final int capacity,
+            final Admission admission
+    ) {
+        this(threadsNum, checkThreads(threadsNum), Duration.ZERO, scheduling, adaptiveChunking, capacity, admission);
+    }
+
+    /**
+     * Constructs new elastic {@code ParallelMapperImpl} with unbounded shared task queue.
+     *
+     * @param minThreads minimal number of thread workers
+     * @param maxThreads maximal number of thread workers
+     * @param keepAlive  time an idle worker waits for a task before retiring
+     * @see #ParallelMapperImpl(int, int, Duration, Scheduling, boolean, int, Admission)
+     */
+    public ParallelMapperImpl(final int minThreads, final int maxThreads, final Duration keepAlive) {
+        this(minThreads, maxThreads, keepAlive, Scheduling.SHARED_QUEUE, false, Integer.MAX_VALUE, Admission.BLOCK);
+    }
+
+    /**
+     * Constructs new elastic {@code ParallelMapperImpl}.
+     * <p>
+     * Mapper starts with {@code minThreads} workers. Whenever submitted tasks outnumber idle workers, new workers are
+     * started, up to {@code maxThreads}. A worker that stays idle for {@code keepAlive} retires, unless only
+     * {@code minThreads} workers are left or there are queued tasks. Adaptive chunking sizes ranges for
+     * {@code maxThreads} workers. If {@code minThreads == maxThreads}, workers never retire.
+     *
+     * @param minThreads       minimal number of thread workers, may be zero
+     * @param maxThreads       maximal number of thread workers
+     * @param keepAlive        time an idle worker waits for a task before retiring
+     * @param scheduling       strategy of distributing tasks between workers
+     * @param adaptiveChunking whether to submit ranges of arguments instead of single elements
+     * @param capacity         maximal number of queued tasks
+     * @param admission        behaviour of {@link #map} on full queue
+     */
+    public ParallelMapperImpl(
+            final int minThreads,
+            final int maxThreads,
+            final Duration keepAlive,
+            final Scheduling scheduling,
+            final boolean adaptiveChunking,
+            final int capacity,
+            final Admission admission
+    ) {
+        if (minThreads < 0 || maxThreads < Math.max(1, minThreads)) {
+            throw new IllegalArgumentException("Expected 0 <= minThreads <= maxThreads and maxThreads > 0");
+        }
+        Objects.requireNonNull(keepAlive);
+        Objects.requireNonNull(scheduling);
+        Objects.requireNonNull(admission);
+        if (minThreads < maxThreads && (keepAlive.isNegative() || keepAlive.isZero())) {
+            throw new IllegalArgumentException("Keep alive time must be positive");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.adaptiveChunking = adaptiveChunking;
+        this.minWorkers = minThreads;
+        this.keepAliveNanos = minThreads < maxThreads ? keepAlive.toNanos() : 0;
+        final TaskQueue<Task> queue = switch (scheduling) {
+            case SHARED_QUEUE -> new SynchronizedQueue<>();
+            case WORK_STEALING -> new WorkStealingQueue<>(maxThreads);
+            case FAIR -> new FairQueue<>();
+        };
+        final TaskQueue<Task> elastic = isElastic() ? new ElasticQueue(queue) : queue;
+        this.tasks = capacity == Integer.MAX_VALUE ? elastic : new BoundedQueue<>(elastic, capacity, admission);
+        this.metrics = IntStream.range(0, maxThreads)
+                .mapToObj(it -> new WorkerMetrics())
+                .toArray(WorkerMetrics[]::new);
+
+        this.workers = new Thread[maxThreads];
+        synchronized (workers) {
+            for (int index = 0; index < minThreads; index++) {
+                startWorker(index);
+            }
+        }
+    }
+
+    private static int checkThreads(final int threadsNum) {
         IterativeParallelism.checkThreads(threadsNum);
+        return threadsNum;
+    }
 
-        final Runnable worker = () -> {
+    private boolean isElastic() {
+        return keepAliveNanos != 0;
+    }
+
+    private void startWorker(final int index) {
+        final Thread thread = new Thread(() -> {
             try {
-                while (!Thread.interrupted()) {
-                    tasks.take().runnable.run();
+                while (!Thread.interrupted() && runNext(index)) {
+                    // Keep taking tasks
                 }
             } catch (final InterruptedException ignored) {
             }
-        };
+        });
+        workers[index] = thread;
+        liveWorkers++;
+        thread.start();
+    }
 
-        this.threads = IntStream.range(0, threadsNum)
-                .mapToObj(it -> new Thread(worker))
-                .peek(Thread::start)
-                .toList();
+    /**
+     * Starts workers for queued tasks that idle workers can not take, called after every submission. Size of the
+     * elastic queue is a counter, so the check is cheap for every scheduling.
+     */
+    private void addWorkers() {
+        if (liveWorkers == workers.length || tasks.size() <= idleWorkers.get()) {
+            return;
+        }
+        synchronized (workers) {
+            int needed = Math.min(workers.length - liveWorkers, tasks.size() - idleWorkers.get());
+            for (int index = 0; index < workers.length && needed > 0 && !closed; index++) {
+                if (workers[index] == null) {
+                    startWorker(index);
+                    needed--;
+                }
+            }
+        }
+    }
+
+    private boolean runNext(final int worker) throws InterruptedException {
+        if (!metricsEnabled) {
+            final Task task = nextTask(worker);
+            if (task == null) {
+                return false;
+            }
+            task.runnable.run();
+            return true;
+        }
+        final long waitStart = System.nanoTime();
+        final Task task = nextTask(worker);
+        if (task == null) {
+            // Retired worker no longer owns its slot, a new worker may already write its metrics
+            return false;
+        }
+        final long start = System.nanoTime();
+        metrics[worker].idle(start - waitStart);
+        try {
+            task.runnable.run();
+        } finally {
+            metrics[worker].executed(task.submitted, start, System.nanoTime());
+        }
+        return true;
+    }
+
+    /**
+     * Returns next task for worker, or {@code null} if the worker has retired.
+     */
+    private Task nextTask(final int worker) throws InterruptedException {
+        if (!isElastic()) {
+            return tasks.take(worker);
+        }
+        Task task;
+        do {
+            task = tasks.poll(worker, keepAliveNanos);
+        } while (task == null && !retire(worker));
+        return task;
+    }
+
+    private boolean retire(final int worker) {
+        synchronized (workers) {
+            // Queued tasks are checked under the same lock as in addWorkers, so they are never left without workers
+            if (liveWorkers <= minWorkers || tasks.size() > 0) {
+                return false;
+            }
+            workers[worker] = null;
+            liveWorkers--;
+            return true;
+        }
+    }
+
+    private long submitted() {
+        return metricsEnabled ? System.nanoTime() : 0;
     }
 
     @Override
     public <T, R> List<R> map(
             final Function<? super T, ? extends R> f,
             final List<? extends T> args
+    ) throws InterruptedException {
+        return map(f, args, new CancellationToken());
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} like {@link #map(Function, List)}, but skips elements not
+     * started before {@code token} is cancelled. Results for skipped elements are {@code null}. If calling thread is
+     * interrupted, {@code token} is cancelled.
+     *
+     * @param f     function to apply
+     * @param args  arguments of function
+     * @param token cancellation token of this call
+     * @param <T>   type of arguments
+     * @param <R>   type of results
+     * @return list of results, containing {@code null} for skipped elements
+     * @throws InterruptedException       if calling thread was interrupted
+     * @throws RejectedExecutionException if queue is bounded with {@link Admission#REJECT} and has no room for tasks
+     */
+    public <T, R> List<R> map(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final CancellationToken token
     ) throws InterruptedException {
         checkClosed();
         final Results<R> results = new Results<>(args.size());
-        tasks.putAll(IntStream.range(0, args.size())
-                .<Task<?>>mapToObj(index -> new Task<>(
+        try {
+            tasks.putAll(adaptiveChunking
+                    ? chunkTasks(f, args, results, token)
+                    : elementTasks(f, args, results, token));
+            return results.getResults();
+        } catch (final InterruptedException e) {
+            // Caller does not wait for results anymore, so elements already admitted but not started are skipped
+            token.cancel();
+            throw e;
+        }
+    }
+
+    private <T, R> List<Task> elementTasks(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final Results<R> results,
+            final CancellationToken token
+    ) {
+        final long submitted = submitted();
+        return IntStream.range(0, args.size())
+                .mapToObj(index -> new Task(
                         () -> {
-                            final Supplier<R> supplier = () -> f.apply(args.get(index));
+                            final Supplier<R> supplier = () -> token.isCancelled() ? null : f.apply(args.get(index));
                             try { // :NOTE: -> result
                                 results.setResult(index, supplier.get());
                             } catch (final RuntimeException e) {
                                 results.setException(e);
                             }
                         },
-                        results
+                        results::cancel,
+                        submitted
                 ))
-                .toList()
+                .toList();
+    }
+
+    private <T, R> List<Task> chunkTasks(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final Results<R> results,
+            final CancellationToken token
+    ) {
+        final int chunkSize = chunkSize(args.size());
+        final List<Task> chunks = new ArrayList<>((args.size() + chunkSize - 1) / chunkSize);
+        final long submitted = submitted();
+        for (int start = 0; start < args.size(); start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(args.size(), start + chunkSize);
+            chunks.add(new Task(
+                    () -> runChunk(f, args, results, token, from, to),
+                    results::cancel,
+                    submitted
+            ));
+        }
+        return chunks;
+    }
+
+    private int chunkSize(final int size) {
+        final int workers = this.workers.length;
+        final int maxChunk = (size + workers - 1) / workers;
+        final int balancedChunk = (size + workers * CHUNKS_PER_WORKER - 1) / (workers * CHUNKS_PER_WORKER);
+        final long cost = elementCostNanos;
+        final long costChunk = cost == 0 ? balancedChunk : TARGET_CHUNK_NANOS / cost;
+        return (int) Math.max(1, Math.min(maxChunk, Math.max(balancedChunk, costChunk)));
+    }
+
+    private <T, R> void runChunk(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final Results<R> results,
+            final CancellationToken token,
+            final int from,
+            final int to
+    ) {
+        final List<R> chunk = new ArrayList<>(to - from);
+        List<RuntimeException> exceptions = List.of();
+        final long start = System.nanoTime();
+        for (int index = from; index < to; index++) {
+            if (token.isCancelled()) {
+                chunk.add(null);
+                continue;
+            }
+            try {
+                chunk.add(f.apply(args.get(index)));
+            } catch (final RuntimeException e) {
+                chunk.add(null);
+                if (exceptions.isEmpty()) {
+                    exceptions = new ArrayList<>();
+                }
+                exceptions.add(e);
+            }
+        }
+        final long observed = Math.max(1, (System.nanoTime() - start) / (to - from));
+        final long previous = elementCostNanos;
+        elementCostNanos = previous == 0 ? observed : (previous * 3 + observed) / 4;
+        results.setChunk(from, chunk, exceptions);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} lazily. Results are returned in order of arguments as soon as
+     * all previous results are available. At most {@code window} arguments are submitted to workers ahead of the
+     * consumer, which bounds memory held by not consumed results.
+     * <p>
+     * Closing returned stream skips arguments that are not started yet. If {@code f} throws an exception on some
+     * argument, it is rethrown when the stream reaches this argument.
+     *
+     * @param f      function to apply
+     * @param args   arguments of function
+     * @param window maximal number of arguments submitted and not consumed yet
+     * @param <T>    type of arguments
+     * @param <R>    type of results
+     * @return ordered stream of results
+     * @throws java.util.concurrent.CancellationException if the consuming thread is interrupted while waiting for a
+     *                                                    result or for room in the queue. Interruption status of the
+     *                                                    thread is restored
+     */
+    public <T, R> Stream<R> mapOrdered(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final int window
+    ) {
+        checkClosed();
+        Objects.requireNonNull(f);
+        Objects.requireNonNull(args);
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        final OrderedResults<T, R> results = new OrderedResults<>(f, args, window);
+        return StreamSupport.stream(
+                Spliterators.spliterator(results, args.size(), Spliterator.ORDERED | Spliterator.SIZED),
+                false
+        ).onClose(results.token::cancel);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return tasks.size();
+    }
+
+    @Override
+    public int getWorkers() {
+        return liveWorkers;
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    @Override
+    public void setMetricsEnabled(final boolean enabled) {
+        metricsEnabled = enabled;
+    }
+
+    @Override
+    public long[] getTasksExecuted() {
+        return Arrays.stream(metrics).mapToLong(WorkerMetrics::tasksExecuted).toArray();
+    }
+
+    @Override
+    public long[] getBusyNanos() {
+        return Arrays.stream(metrics).mapToLong(WorkerMetrics::busyNanos).toArray();
+    }
+
+    @Override
+    public long[] getIdleNanos() {
+        return Arrays.stream(metrics).mapToLong(WorkerMetrics::idleNanos).toArray();
+    }
+
+    @Override
+    public long[] getExecutionTimeHistogram() {
+        return WorkerMetrics.sum(metrics, WorkerMetrics::executionTimes);
+    }
+
+    @Override
+    public long[] getQueueWaitHistogram() {
+        return WorkerMetrics.sum(metrics, WorkerMetrics::queueWaits);
+    }
+
+    /**
+     * Returns snapshot of collected metrics. Metrics are collected only after
+     * {@link #setMetricsEnabled(boolean) enabling}, otherwise workers do not measure anything.
+     *
+     * @return current metrics
+     */
+    public ParallelMapperMetrics getMetrics() {
+        return new ParallelMapperMetrics(
+                getQueueDepth(),
+                getTasksExecuted(),
+                getBusyNanos(),
+                getIdleNanos(),
+                getExecutionTimeHistogram(),
+                getQueueWaitHistogram()
         );
-        return results.getResults();
+    }
+
+    /**
+     * Registers this mapper in the platform MBean server. Registration is removed on {@link #close()}.
+     *
+     * @return name of registered MBean
+     * @throws JMException if MBean can not be registered
+     */
+    public ObjectName registerMBean() throws JMException {
+        checkClosed();
+        final ObjectName name = new ObjectName(ParallelMapperImpl.class.getPackageName()
+                + ":type=ParallelMapper,name=mapper-" + INSTANCES.incrementAndGet());
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        objectName = name;
+        return name;
     }
 
     @Override
     public void close() {
         closed = true;
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (final JMException ignored) {
+            }
+        }
+        tasks.close();
+        final List<Thread> threads;
+        synchronized (workers) {
+            threads = Arrays.stream(workers).filter(Objects::nonNull).toList();
+        }
         threads.forEach(Thread::interrupt);
-        tasks.forEach(it -> it.result().cancel());
+        tasks.forEach(it -> it.cancel().run());
         for (final Thread thread : threads) {
             boolean joined = false;
             while (!joined) {
@@ -90,74 +554,558 @@ public class ParallelMapperImpl implements ParallelMapper {
         }
     }
 
-    private record Task<R>(Runnable runnable, Results<R> result) {
+    /**
+     * Strategy of distributing submitted tasks between worker threads.
+     */
+    public enum Scheduling {
+        /**
+         * All workers take tasks from one queue guarded by a single monitor.
+         */
+        SHARED_QUEUE,
+        /**
+         * Every worker owns a deque. {@link #map} spreads tasks between deques in batches and idle workers steal
+         * tasks from the tails of other workers' deques.
+         */
+        WORK_STEALING,
+        /**
+         * Every {@link #map} call gets its own queue and workers take tasks from queues of active calls in
+         * round-robin order, so a call with many arguments does not delay calls with few ones.
+         */
+        FAIR
     }
 
-    private static class SynchronizedQueue<T> {
+    /**
+     * Behaviour of bounded {@code ParallelMapperImpl} when its queue is full.
+     */
+    public enum Admission {
+        /**
+         * Caller waits until workers take enough tasks.
+         */
+        BLOCK,
+        /**
+         * Caller gets {@link RejectedExecutionException}. Calls with more tasks than capacity are always rejected.
+         */
+        REJECT
+    }
+
+    private record Task(Runnable runnable, Runnable cancel, long submitted) {
+    }
+
+    private interface TaskQueue<T> {
+
+        void putAll(List<T> list) throws InterruptedException;
+
+        T take(int worker) throws InterruptedException;
+
+        /**
+         * Takes a task like {@link #take}, but returns {@code null} if no task comes in {@code timeoutNanos}.
+         */
+        T poll(int worker, long timeoutNanos) throws InterruptedException;
+
+        void forEach(Consumer<T> consumer);
+
+        int size();
+
+        default void close() {
+        }
+    }
+
+    private static class SynchronizedQueue<T> implements TaskQueue<T> {
 
         private final Queue<T> queue = new ArrayDeque<>();
 
+        @Override
         public synchronized void putAll(final List<T> list) {
             queue.addAll(list);
             list.forEach(it -> this.notify());
         }
 
-        public synchronized T take() throws InterruptedException {
+        @Override
+        public synchronized T take(final int worker) throws InterruptedException {
             while (queue.isEmpty()) {
                 wait();
             }
             return queue.poll();
         }
 
+        @Override
+        public synchronized T poll(final int worker, final long timeoutNanos) throws InterruptedException {
+            final long deadline = System.nanoTime() + timeoutNanos;
+            while (queue.isEmpty()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return queue.poll();
+        }
+
+        @Override
         public synchronized void forEach(final Consumer<T> consumer) {
             queue.forEach(consumer);
         }
+
+        @Override
+        public synchronized int size() {
+            return queue.size();
+        }
     }
 
-    private class Results<R> {
+    private static class WorkStealingQueue<T> implements TaskQueue<T> {
 
-        private final List<R> results;
-        private int resultsCountRest;
-        private RuntimeException exception = null;
+        private final List<Deque<T>> deques;
+        private final Object idleMonitor = new Object();
+        private int idleWorkers = 0;
 
-        private Results(final int size) {
-            resultsCountRest = size;
-            results = new ArrayList<>(Collections.nCopies(size, null));
+        private WorkStealingQueue(final int workers) {
+            deques = IntStream.range(0, workers)
+                    .<Deque<T>>mapToObj(it -> new ConcurrentLinkedDeque<>())
+                    .toList();
         }
 
-        synchronized void setResult(final int index, final R result) {
-            results.set(index, result);
-            incrementResultCounter();
+        @Override
+        public void putAll(final List<T> list) {
+            final List<IterativeParallelism.Range> ranges = IterativeParallelism.generateRanges(deques.size(),
+                    list.size());
+            final int offset = ThreadLocalRandom.current().nextInt(deques.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                final IterativeParallelism.Range range = ranges.get(i);
+                deques.get((offset + i) % deques.size()).addAll(list.subList(range.from(), range.to()));
+            }
+            synchronized (idleMonitor) {
+                if (idleWorkers > 0) {
+                    idleMonitor.notifyAll();
+                }
+            }
         }
 
-        synchronized void setException(final RuntimeException exception) {
-            if (this.exception == null) {
-                this.exception = exception;
-            } else {
-                this.exception.addSuppressed(exception);
+        @Override
+        public T take(final int worker) throws InterruptedException {
+            T task = poll(worker);
+            if (task != null) {
+                return task;
             }
-            incrementResultCounter();
+            synchronized (idleMonitor) {
+                idleWorkers++;
+                try {
+                    while ((task = poll(worker)) == null) {
+                        idleMonitor.wait();
+                    }
+                } finally {
+                    idleWorkers--;
+                }
+            }
+            return task;
         }
 
-        private void incrementResultCounter() {
-            if (--resultsCountRest == 0) {
-                notify();
+        @Override
+        public T poll(final int worker, final long timeoutNanos) throws InterruptedException {
+            T task = poll(worker);
+            if (task != null) {
+                return task;
             }
+            final long deadline = System.nanoTime() + timeoutNanos;
+            synchronized (idleMonitor) {
+                idleWorkers++;
+                try {
+                    while ((task = poll(worker)) == null) {
+                        final long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            return null;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(idleMonitor, remaining);
+                    }
+                } finally {
+                    idleWorkers--;
+                }
+            }
+            return task;
+        }
+
+        private T poll(final int worker) {
+            final T own = deques.get(worker).pollFirst();
+            if (own != null) {
+                return own;
+            }
+            final int offset = ThreadLocalRandom.current().nextInt(deques.size());
+            for (int i = 0; i < deques.size(); i++) {
+                final T stolen = deques.get((offset + i) % deques.size()).pollLast();
+                if (stolen != null) {
+                    return stolen;
+                }
+            }
+            return null;
         }
 
-        synchronized List<R> getResults() throws InterruptedException {
-            while (resultsCountRest != 0 && !closed) {
+        @Override
+        public void forEach(final Consumer<T> consumer) {
+            deques.forEach(deque -> deque.forEach(consumer));
+        }
+
+        @Override
+        public int size() {
+            return deques.stream().mapToInt(Deque::size).sum();
+        }
+    }
+
+    private static class FairQueue<T> implements TaskQueue<T> {
+
+        private final Queue<Queue<T>> batches = new ArrayDeque<>();
+        private int size = 0;
+
+        @Override
+        public synchronized void putAll(final List<T> list) {
+            if (list.isEmpty()) {
+                return;
+            }
+            batches.add(new ArrayDeque<>(list));
+            size += list.size();
+            notifyAll();
+        }
+
+        @Override
+        public synchronized T take(final int worker) throws InterruptedException {
+            while (batches.isEmpty()) {
                 wait();
             }
-            checkClosed();
+            return next();
+        }
+
+        @Override
+        public synchronized T poll(final int worker, final long timeoutNanos) throws InterruptedException {
+            final long deadline = System.nanoTime() + timeoutNanos;
+            while (batches.isEmpty()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return next();
+        }
+
+        private T next() {
+            final Queue<T> batch = batches.poll();
+            final T task = batch.poll();
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+            size--;
+            return task;
+        }
+
+        @Override
+        public synchronized void forEach(final Consumer<T> consumer) {
+            batches.forEach(batch -> batch.forEach(consumer));
+        }
+
+        @Override
+        public synchronized int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Limits number of tasks in another queue. Permits are taken by submitters and returned by workers.
+     */
+    private static class BoundedQueue<T> implements TaskQueue<T> {
+
+        private final TaskQueue<T> queue;
+        private final int capacity;
+        private final int part;
+        private final Admission admission;
+        private final Semaphore permits;
+        private volatile boolean closed = false;
+
+        private BoundedQueue(final TaskQueue<T> queue, final int capacity, final Admission admission) {
+            this.queue = queue;
+            this.capacity = capacity;
+            this.part = Math.max(1, capacity / 4);
+            this.admission = admission;
+            this.permits = new Semaphore(capacity, true);
+        }
+
+        @Override
+        public void putAll(final List<T> list) throws InterruptedException {
+            if (admission == Admission.REJECT) {
+                if (list.size() > capacity || !permits.tryAcquire(list.size())) {
+                    throw new RejectedExecutionException("Task queue is full");
+                }
+                queue.putAll(list);
+                return;
+            }
+            for (int start = 0; start < list.size(); start += part) {
+                final int end = Math.min(list.size(), start + part);
+                permits.acquire(end - start);
+                if (closed) {
+                    // Pass permits to the next blocked submitter, nobody else returns them after close
+                    permits.release(end - start);
+                    return;
+                }
+                queue.putAll(list.subList(start, end));
+            }
+        }
+
+        @Override
+        public T take(final int worker) throws InterruptedException {
+            final T task = queue.take(worker);
+            permits.release();
+            return task;
+        }
+
+        @Override
+        public T poll(final int worker, final long timeoutNanos) throws InterruptedException {
+            final T task = queue.poll(worker, timeoutNanos);
+            if (task != null) {
+                permits.release();
+            }
+            return task;
+        }
+
+        @Override
+        public void forEach(final Consumer<T> consumer) {
+            queue.forEach(consumer);
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            permits.release(capacity);
+        }
+    }
+
+    /**
+     * Counts workers waiting for tasks in another queue and starts new workers after every submission. Bounded queue
+     * wraps this one, so blocked submitters get workers for admitted parts before waiting for the next ones.
+     * <p>
+     * Queued tasks are counted here, as size of work-stealing deques takes time linear in their length. Tasks are
+     * counted before they are queued, so a retiring worker never misses a queued task.
+     */
+    private class ElasticQueue implements TaskQueue<Task> {
+
+        private final TaskQueue<Task> queue;
+        private final AtomicInteger size = new AtomicInteger();
+
+        private ElasticQueue(final TaskQueue<Task> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void putAll(final List<Task> list) throws InterruptedException {
+            size.addAndGet(list.size());
+            queue.putAll(list);
+            addWorkers();
+        }
+
+        @Override
+        public Task take(final int worker) throws InterruptedException {
+            return taken(queue.take(worker));
+        }
+
+        @Override
+        public Task poll(final int worker, final long timeoutNanos) throws InterruptedException {
+            idleWorkers.incrementAndGet();
+            try {
+                return taken(queue.poll(worker, timeoutNanos));
+            } finally {
+                idleWorkers.decrementAndGet();
+            }
+        }
+
+        private Task taken(final Task task) {
+            if (task != null) {
+                size.decrementAndGet();
+            }
+            return task;
+        }
+
+        @Override
+        public void forEach(final Consumer<Task> consumer) {
+            queue.forEach(consumer);
+        }
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+    }
+
+    /**
+     * Lazily submitted results of one {@link #mapOrdered} call. Result of argument {@code i} is stored in slot
+     * {@code i % window} until it is consumed; argument {@code i + window} is submitted only after that.
+     */
+    private class OrderedResults<T, R> implements Iterator<R> {
+
+        private final Function<? super T, ? extends R> f;
+        private final List<? extends T> args;
+        private final int window;
+        private final CancellationToken token = new CancellationToken();
+        private final Object[] slots;
+        private final RuntimeException[] exceptions;
+        private final boolean[] ready;
+        private int submitted = 0;
+        private int consumed = 0;
+
+        private OrderedResults(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                final int window) {
+            this.f = f;
+            this.args = args;
+            this.window = window;
+            slots = new Object[window];
+            exceptions = new RuntimeException[window];
+            ready = new boolean[window];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return consumed < args.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            submit();
+            final int slot = consumed % window;
+            final Object result;
+            final RuntimeException exception;
+            synchronized (this) {
+                try {
+                    while (!ready[slot] && !closed) {
+                        wait();
+                    }
+                } catch (final InterruptedException e) {
+                    token.cancel();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while waiting for result");
+                }
+                checkClosed();
+                result = slots[slot];
+                exception = exceptions[slot];
+                slots[slot] = null;
+                exceptions[slot] = null;
+                ready[slot] = false;
+            }
+            consumed++;
             if (exception != null) {
                 throw exception;
             }
-            return results;
+            return (R) result;
+        }
+
+        private void submit() {
+            if (submitted == args.size() || submitted - consumed > window / 2) {
+                return;
+            }
+            final int to = Math.min(args.size(), consumed + window);
+            final long submitTime = submitted();
+            try {
+                tasks.putAll(IntStream.range(submitted, to)
+                        .mapToObj(index -> new Task(() -> complete(index), this::cancel, submitTime))
+                        .toList());
+            } catch (final InterruptedException e) {
+                token.cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for room in queue");
+            }
+            submitted = to;
+        }
+
+        private void complete(final int index) {
+            Object result = null;
+            RuntimeException exception = null;
+            if (!token.isCancelled()) {
+                try {
+                    result = f.apply(args.get(index));
+                } catch (final RuntimeException e) {
+                    exception = e;
+                }
+            }
+            synchronized (this) {
+                slots[index % window] = result;
+                exceptions[index % window] = exception;
+                ready[index % window] = true;
+                notify();
+            }
+        }
+
+        private synchronized void cancel() {
+            notify();
+        }
+    }
+
+    /**
+     * Results of one {@link #map} call. Every result is written with a plain store into its own cell, and the
+     * happens-before edge to the caller is provided by the atomic countdown of remaining results and a latch released
+     * by the last completion, so completions never contend on a monitor.
+     */
+    private class Results<R> {
+
+        private final Object[] results;
+        private final AtomicInteger resultsCountRest;
+        private final AtomicReference<RuntimeException> exception = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Results(final int size) {
+            results = new Object[size];
+            resultsCountRest = new AtomicInteger(size);
+            if (size == 0) {
+                done.countDown();
+            }
+        }
+
+        void setResult(final int index, final R result) {
+            results[index] = result;
+            countDown(1);
+        }
+
+        void setException(final RuntimeException exception) {
+            addException(exception);
+            countDown(1);
+        }
+
+        void setChunk(final int from, final List<R> chunk, final List<RuntimeException> exceptions) {
+            for (int i = 0; i < chunk.size(); i++) {
+                results[from + i] = chunk.get(i);
+            }
+            exceptions.forEach(this::addException);
+            countDown(chunk.size());
+        }
+
+        private void addException(final RuntimeException exception) {
+            if (!this.exception.compareAndSet(null, exception)) {
+                this.exception.get().addSuppressed(exception);
+            }
+        }
+
+        private void countDown(final int completed) {
+            if (resultsCountRest.addAndGet(-completed) == 0) {
+                done.countDown();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> getResults() throws InterruptedException {
+            if (!closed) {
+                done.await();
+            }
+            checkClosed();
+            if (exception.get() != null) {
+                throw exception.get();
+            }
+            return Arrays.asList((R[]) results);
         }
 
-        synchronized void cancel() {
-            this.notify();
+        void cancel() {
+            done.countDown();
         }
     }
 }
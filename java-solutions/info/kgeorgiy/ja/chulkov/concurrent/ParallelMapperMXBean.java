@@ -0,0 +1,71 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+/**
+ * Management interface of {@link ParallelMapperImpl}. Per-worker arrays are indexed by worker number. Histogram bucket
+ * {@code i} counts durations in {@code [2^i, 2^(i+1))} nanoseconds.
+ */
+public interface ParallelMapperMXBean {
+
+    /**
+     * Returns number of tasks submitted to workers and not taken yet.
+     *
+     * @return current depth of task queue
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns number of running worker threads. Elastic mapper starts and retires workers on demand.
+     *
+     * @return number of workers
+     */
+    int getWorkers();
+
+    /**
+     * Checks whether metrics are collected.
+     *
+     * @return {@code true} if metrics are collected
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * Enables or disables collecting of metrics. Collected values are kept while disabled.
+     *
+     * @param enabled whether to collect metrics
+     */
+    void setMetricsEnabled(boolean enabled);
+
+    /**
+     * Returns number of tasks executed by every worker.
+     *
+     * @return executed tasks per worker
+     */
+    long[] getTasksExecuted();
+
+    /**
+     * Returns time every worker spent executing tasks.
+     *
+     * @return busy nanoseconds per worker
+     */
+    long[] getBusyNanos();
+
+    /**
+     * Returns time every worker spent waiting for tasks.
+     *
+     * @return idle nanoseconds per worker
+     */
+    long[] getIdleNanos();
+
+    /**
+     * Returns histogram of task execution times.
+     *
+     * @return counts of execution times by power of two buckets
+     */
+    long[] getExecutionTimeHistogram();
+
+    /**
+     * Returns histogram of times between task submission and start of its execution.
+     *
+     * @return counts of queue wait times by power of two buckets
+     */
+    long[] getQueueWaitHistogram();
+}
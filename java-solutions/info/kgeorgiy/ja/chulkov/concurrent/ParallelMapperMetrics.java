@@ -0,0 +1,23 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+/**
+ * Snapshot of {@link ParallelMapperImpl} metrics. Per-worker arrays are indexed by worker number. Histogram bucket
+ * {@code i} counts durations in {@code [2^i, 2^(i+1))} nanoseconds.
+ *
+ * @param queueDepth             number of queued tasks
+ * @param tasksExecuted          executed tasks per worker
+ * @param busyNanos              time spent executing tasks per worker
+ * @param idleNanos              time spent waiting for tasks per worker
+ * @param executionTimeHistogram histogram of task execution times
+ * @param queueWaitHistogram     histogram of times between task submission and start of its execution
+ */
+public record ParallelMapperMetrics(
+        int queueDepth,
+        long[] tasksExecuted,
+        long[] busyNanos,
+        long[] idleNanos,
+        long[] executionTimeHistogram,
+        long[] queueWaitHistogram
+) {
+
+}
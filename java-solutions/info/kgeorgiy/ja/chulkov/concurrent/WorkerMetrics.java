@@ -0,0 +1,88 @@
+package info.kgeorgiy.ja.chulkov.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Metrics of {@link ParallelMapperImpl} workers. Every counter is written only by its worker with release stores, so
+ * updates need no atomic read-modify-write and readers never see torn values.
+ */
+class WorkerMetrics {
+
+    static final int HISTOGRAM_BUCKETS = Long.SIZE;
+
+    private static final int TASKS = 0;
+    private static final int BUSY = 1;
+    private static final int IDLE = 2;
+    private static final int COUNTERS = 3;
+
+    private final AtomicLongArray counters;
+    private final AtomicLongArray executionTimes;
+    private final AtomicLongArray queueWaits;
+
+    WorkerMetrics() {
+        counters = new AtomicLongArray(COUNTERS);
+        executionTimes = new AtomicLongArray(HISTOGRAM_BUCKETS);
+        queueWaits = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    }
+
+    static long[] sum(final WorkerMetrics[] workers, final Function<WorkerMetrics, long[]> getter) {
+        final long[] result = new long[HISTOGRAM_BUCKETS];
+        for (final WorkerMetrics worker : workers) {
+            final long[] values = getter.apply(worker);
+            for (int i = 0; i < result.length; i++) {
+                result[i] += values[i];
+            }
+        }
+        return result;
+    }
+
+    private static void add(final AtomicLongArray array, final int index, final long value) {
+        array.setRelease(index, array.getPlain(index) + value);
+    }
+
+    private static int bucket(final long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long[] toArray(final AtomicLongArray array) {
+        final long[] result = new long[array.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.getAcquire(i);
+        }
+        return result;
+    }
+
+    void idle(final long nanos) {
+        add(counters, IDLE, nanos);
+    }
+
+    void executed(final long submitted, final long started, final long finished) {
+        add(counters, TASKS, 1);
+        add(counters, BUSY, finished - started);
+        add(executionTimes, bucket(finished - started), 1);
+        if (submitted != 0) {
+            add(queueWaits, bucket(started - submitted), 1);
+        }
+    }
+
+    long tasksExecuted() {
+        return counters.getAcquire(TASKS);
+    }
+
+    long busyNanos() {
+        return counters.getAcquire(BUSY);
+    }
+
+    long idleNanos() {
+        return counters.getAcquire(IDLE);
+    }
+
+    long[] executionTimes() {
+        return toArray(executionTimes);
+    }
+
+    long[] queueWaits() {
+        return toArray(queueWaits);
+    }
+}
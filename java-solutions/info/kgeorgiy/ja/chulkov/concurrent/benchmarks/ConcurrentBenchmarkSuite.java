@@ -0,0 +1,191 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark suite of {@link IterativeParallelism} operations over a grid of list sizes, thread counts and element cost
+ * profiles, comparing thread-per-call execution against execution on {@link ParallelMapperImpl}.
+ * <p>
+ * Every configuration is warmed up and then measured in several iterations; one CSV row with mean and standard
+ * deviation of the time per operation is printed for every configuration, so results can be compared between runs.
+ */
+public class ConcurrentBenchmarkSuite {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+    private static final long MIN_ITERATION_NANOS = 100_000_000;
+    private static final String HEADER = "operation,mode,cost,threads,size,iterations,nanosPerOp,stdDevNanos";
+
+    private static volatile int sink;
+
+    private ConcurrentBenchmarkSuite() {
+    }
+
+    /**
+     * Benchmarked operations. {@link #JOIN} takes no element function, so its cost profile does not matter.
+     */
+    public enum Operation {
+        MAXIMUM, COUNT, FILTER, MAP, MAP_REDUCE, JOIN
+    }
+
+    /**
+     * Execution modes.
+     */
+    public enum Mode {
+        /**
+         * New threads are started for every call.
+         */
+        THREADS,
+        /**
+         * Calls are executed on a shared {@link ParallelMapperImpl}.
+         */
+        MAPPER
+    }
+
+    /**
+     * Cost profiles of a single element.
+     */
+    public enum Cost {
+        /**
+         * A few arithmetic operations.
+         */
+        CHEAP(1),
+        /**
+         * About a microsecond of arithmetic.
+         */
+        EXPENSIVE(200);
+
+        private final int rounds;
+
+        Cost(final int rounds) {
+            this.rounds = rounds;
+        }
+
+        private int apply(final int value) {
+            int result = value;
+            for (int i = 0; i < rounds; i++) {
+                result = result * 1_103_515_245 + 12_345;
+            }
+            return result;
+        }
+    }
+
+    private interface Call {
+
+        int run(IterativeParallelism parallelism) throws InterruptedException;
+    }
+
+    /**
+     * Runs benchmark suite.
+     *
+     * @param args {@code [output.csv [sizes [threads]]]}, where sizes and threads are comma-separated lists. Results
+     *             are printed to standard output if output file is {@code -} or omitted.
+     */
+    public static void main(final String[] args) throws InterruptedException, IOException {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int[] sizes = args.length > 1 ? parseInts(args[1]) : new int[]{100, 10_000, 1_000_000};
+        final int[] threads = args.length > 2
+                ? parseInts(args[2])
+                : IntStream.of(1, 2, processors, 2 * processors).distinct().sorted().toArray();
+        if (args.length > 0 && !args[0].equals("-")) {
+            try (final PrintStream out = new PrintStream(Files.newOutputStream(Path.of(args[0])), true,
+                    StandardCharsets.UTF_8)) {
+                run(out, sizes, threads);
+            }
+        } else {
+            run(System.out, sizes, threads);
+        }
+    }
+
+    private static int[] parseInts(final String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void run(final PrintStream out, final int[] sizes, final int[] threadCounts)
+            throws InterruptedException {
+        out.println(HEADER);
+        final IterativeParallelism threadPerCall = new IterativeParallelism();
+        for (final int threads : threadCounts) {
+            try (final ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+                final IterativeParallelism onMapper = new IterativeParallelism(mapper);
+                for (final int size : sizes) {
+                    final List<Integer> values = IntStream.range(0, size).boxed().toList();
+                    for (final Cost cost : Cost.values()) {
+                        for (final Operation operation : Operation.values()) {
+                            final Call call = call(operation, cost, threads, values);
+                            measure(out, operation, Mode.THREADS, cost, threads, size, threadPerCall, call);
+                            measure(out, operation, Mode.MAPPER, cost, threads, size, onMapper, call);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Call call(final Operation operation, final Cost cost, final int threads,
+            final List<Integer> values) {
+        final IntUnaryOperator work = cost::apply;
+        return switch (operation) {
+            case MAXIMUM -> parallelism -> parallelism.maximum(threads, values,
+                    Comparator.comparingInt(work::applyAsInt));
+            case COUNT -> parallelism -> parallelism.count(threads, values, it -> (work.applyAsInt(it) & 1) == 0);
+            case FILTER -> parallelism -> parallelism.filter(threads, values, it -> (work.applyAsInt(it) & 1) == 0)
+                    .size();
+            case MAP -> parallelism -> parallelism.map(threads, values, work::applyAsInt).size();
+            case MAP_REDUCE -> parallelism -> parallelism.mapReduce(threads, values, work::applyAsInt,
+                    new Monoid<>(0, Integer::sum));
+            case JOIN -> parallelism -> parallelism.join(threads, values).length();
+        };
+    }
+
+    private static void measure(final PrintStream out, final Operation operation, final Mode mode, final Cost cost,
+            final int threads, final int size, final IterativeParallelism parallelism, final Call call)
+            throws InterruptedException {
+        final int calls = calibrate(parallelism, call);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(parallelism, call, calls);
+        }
+        final double[] samples = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            samples[i] = (double) iteration(parallelism, call, calls) / calls;
+        }
+        final double mean = Arrays.stream(samples).average().orElseThrow();
+        final double variance = Arrays.stream(samples).map(it -> (it - mean) * (it - mean)).sum()
+                / Math.max(1, ITERATIONS - 1);
+        CsvRows.print(out, operation, mode, cost, threads, size, ITERATIONS, Math.round(mean),
+                Math.round(Math.sqrt(variance)));
+    }
+
+    private static int calibrate(final IterativeParallelism parallelism, final Call call)
+            throws InterruptedException {
+        int calls = 1;
+        while (calls < Integer.MAX_VALUE / 2 && iteration(parallelism, call, calls) < MIN_ITERATION_NANOS / 10) {
+            calls *= 2;
+        }
+        return calls * 10;
+    }
+
+    private static long iteration(final IterativeParallelism parallelism, final Call call, final int calls)
+            throws InterruptedException {
+        int result = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            result += call.run(parallelism);
+        }
+        final long elapsed = System.nanoTime() - start;
+        sink = result;
+        return elapsed;
+    }
+}
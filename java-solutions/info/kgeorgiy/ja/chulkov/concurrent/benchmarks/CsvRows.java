@@ -0,0 +1,32 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * CSV output of benchmarks. Fractional values are written with two decimals in {@link Locale#ROOT}, so that commas
+ * of other locales do not split columns.
+ */
+public class CsvRows {
+
+    private CsvRows() {
+    }
+
+    /**
+     * Prints comma-separated row of values.
+     *
+     * @param out    stream to print to
+     * @param values values of columns
+     */
+    public static void print(final PrintStream out, final Object... values) {
+        out.println(Arrays.stream(values).map(CsvRows::format).collect(Collectors.joining(",")));
+    }
+
+    private static String format(final Object value) {
+        return value instanceof Double || value instanceof Float
+                ? String.format(Locale.ROOT, "%.2f", value)
+                : String.valueOf(value);
+    }
+}
@@ -0,0 +1,57 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares per-call latency of {@link IterativeParallelism} execution modes on small lists, where the cost of starting
+ * sub-tasks dominates the cost of the work itself.
+ */
+public class IterativeParallelismBenchmark {
+
+    private static final int WARMUP_CALLS = 2_000;
+
+    private IterativeParallelismBenchmark() {
+    }
+
+    private interface Call {
+
+        void run(IterativeParallelism parallelism) throws InterruptedException;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args {@code [threads [calls [listSize]]]}
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int calls = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        final int listSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        final List<Integer> values = IntStream.range(0, listSize).boxed().toList();
+        final Call call = parallelism -> parallelism.maximum(threads, values, Comparator.naturalOrder());
+
+        System.out.println("mode,threads,calls,listSize,microsPerCall");
+        measure("PLATFORM_THREADS", new IterativeParallelism(), call, threads, calls, listSize);
+        measure("VIRTUAL_THREADS", IterativeParallelism.ofVirtualThreads(), call, threads, calls, listSize);
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+            measure("PARALLEL_MAPPER", new IterativeParallelism(mapper), call, threads, calls, listSize);
+        }
+    }
+
+    private static void measure(final String mode, final IterativeParallelism parallelism, final Call call,
+            final int threads, final int calls, final int listSize) throws InterruptedException {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.run(parallelism);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            call.run(parallelism);
+        }
+        final double micros = (System.nanoTime() - start) / 1e3 / calls;
+        CsvRows.print(System.out, mode, threads, calls, listSize, micros);
+    }
+}
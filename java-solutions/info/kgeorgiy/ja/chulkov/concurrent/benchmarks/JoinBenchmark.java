@@ -0,0 +1,55 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Compares {@link IterativeParallelism#join} with joining by {@code mapReduce} over {@code String::concat} monoid,
+ * which is quadratic in output length and is measured only on small lists.
+ */
+public class JoinBenchmark {
+
+    private static final int CONCAT_MAX_SIZE = 100_000;
+    private static final int ITERATIONS = 5;
+
+    private JoinBenchmark() {
+    }
+
+    private interface Join {
+
+        String join(IterativeParallelism parallelism, int threads, List<?> values) throws InterruptedException;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args {@code [threads [listSize]]}
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int listSize = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        final List<Integer> values = IntStream.range(0, listSize).boxed().toList();
+        final IterativeParallelism parallelism = new IterativeParallelism();
+
+        System.out.println("method,threads,listSize,millisPerCall");
+        measure("JOIN", IterativeParallelism::join, parallelism, threads, values);
+        if (listSize <= CONCAT_MAX_SIZE) {
+            measure("CONCAT_MONOID", (ip, t, v) -> ip.mapReduce(t, v, Objects::toString,
+                    new Monoid<>("", String::concat)), parallelism, threads, values);
+        }
+    }
+
+    private static void measure(final String method, final Join join, final IterativeParallelism parallelism,
+            final int threads, final List<?> values) throws InterruptedException {
+        join.join(parallelism, threads, values);
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            join.join(parallelism, threads, values);
+        }
+        final double millis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+        CsvRows.print(System.out, method, threads, values.size(), millis);
+    }
+}
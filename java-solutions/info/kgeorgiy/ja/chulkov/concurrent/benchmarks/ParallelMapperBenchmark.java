@@ -0,0 +1,78 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl.Scheduling;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Compares throughput of {@link ParallelMapperImpl} scheduling strategies and submission modes when many callers
+ * submit small {@code map} calls with cheap functions.
+ */
+public class ParallelMapperBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 5;
+
+    private ParallelMapperBenchmark() {
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args {@code [workers [callers [calls [listSize]]]]}
+     */
+    public static void main(final String[] args) throws InterruptedException, ExecutionException {
+        final int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int callers = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int calls = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        final int listSize = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        final List<Integer> values = IntStream.range(0, listSize).boxed().toList();
+
+        System.out.println("scheduling,chunking,workers,callers,calls,listSize,elementsPerSecond");
+        for (final Scheduling scheduling : Scheduling.values()) {
+            for (final boolean chunking : new boolean[]{false, true}) {
+                try (final ParallelMapperImpl mapper = new ParallelMapperImpl(workers, scheduling, chunking)) {
+                    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                        run(mapper, callers, calls, values);
+                    }
+                    long elapsed = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        elapsed += run(mapper, callers, calls, values);
+                    }
+                    final double elements = (double) ITERATIONS * callers * calls * listSize;
+                    CsvRows.print(System.out, scheduling, chunking, workers, callers, calls, listSize,
+                            Math.round(elements / elapsed * 1e9));
+                }
+            }
+        }
+    }
+
+    private static long run(final ParallelMapperImpl mapper, final int callers, final int calls,
+            final List<Integer> values) throws InterruptedException, ExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<?>> futures = new ArrayList<>(callers);
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int call = 0; call < calls; call++) {
+                        mapper.map(it -> it * 31 + 7, values);
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package info.kgeorgiy.ja.chulkov.concurrent.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Compares latency of {@link IterativeParallelism#mapReduce} with equal buckets and with fork-join splitting on a
+ * workload, where elements of the first bucket are {@value #SLOW_FACTOR} times slower than others.
+ */
+public class SkewedWorkloadBenchmark {
+
+    private static final int SLOW_FACTOR = 100;
+    private static final int BASE_COST = 200;
+    private static final int WARMUP_CALLS = 10;
+
+    private SkewedWorkloadBenchmark() {
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args {@code [threads [calls [listSize [leafSize]]]]}
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int calls = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int listSize = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        final int leafSize = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        final int slowBound = listSize / threads;
+        final List<Integer> values = IntStream.range(0, listSize).boxed().toList();
+        final Function<Integer, Long> lift = value -> work(value < slowBound ? BASE_COST * SLOW_FACTOR : BASE_COST);
+
+        System.out.println("mode,threads,listSize,leafSize,p50Millis,p99Millis,maxMillis");
+        measure("BUCKETS", new IterativeParallelism(), threads, calls, values, leafSize, lift);
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            measure("FORK_JOIN", new IterativeParallelism(pool, leafSize), threads, calls, values, leafSize, lift);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long work(final int iterations) {
+        long hash = 17;
+        for (int i = 0; i < iterations; i++) {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+
+    private static void measure(final String mode, final IterativeParallelism parallelism, final int threads,
+            final int calls, final List<Integer> values, final int leafSize, final Function<Integer, Long> lift)
+            throws InterruptedException {
+        final Monoid<Long> monoid = new Monoid<>(0L, Long::sum);
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            parallelism.mapReduce(threads, values, lift, monoid);
+        }
+        final long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            final long start = System.nanoTime();
+            parallelism.mapReduce(threads, values, lift, monoid);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        CsvRows.print(System.out, mode, threads, values.size(), leafSize,
+                latencies[calls / 2] / 1e6, latencies[(int) (calls * 0.99)] / 1e6, latencies[calls - 1] / 1e6);
+    }
+}
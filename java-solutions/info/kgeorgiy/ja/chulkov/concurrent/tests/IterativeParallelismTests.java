@@ -0,0 +1,209 @@
+package info.kgeorgiy.ja.chulkov.concurrent.tests;
+
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IterativeParallelismTests {
+
+    private static final int SIZE = 10_007;
+    private static final int SLOW_SIZE = 10_000;
+    private static final int THREADS = 4;
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void shortCircuit(final IterativeParallelism parallelism) throws InterruptedException {
+        final List<Integer> values = IntStream.range(0, SLOW_SIZE).boxed().toList();
+        final AtomicInteger tested = new AtomicInteger();
+        // Only the first element decides the answer, every other one takes a millisecond
+        final Predicate<Integer> zero = value -> {
+            tested.incrementAndGet();
+            if (value != 0) {
+                sleep();
+            }
+            return value == 0;
+        };
+        Assert.assertTrue(parallelism.any(THREADS, values, zero));
+        Assert.assertTrue("any tested " + tested.get() + " values", tested.get() < SLOW_SIZE / 10);
+        tested.set(0);
+        Assert.assertFalse(parallelism.all(THREADS, values, zero.negate()));
+        Assert.assertTrue("all tested " + tested.get() + " values", tested.get() < SLOW_SIZE / 10);
+        tested.set(0);
+        Assert.assertEquals(Optional.of(0), parallelism.findFirst(THREADS, values, zero));
+        Assert.assertTrue("findFirst tested " + tested.get() + " values", tested.get() < SLOW_SIZE / 10);
+    }
+
+    @Test
+    public void shortCircuitTest() throws InterruptedException {
+        shortCircuit(new IterativeParallelism());
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            shortCircuit(new IterativeParallelism(mapper));
+        }
+    }
+
+    private static final int FAILING = 10;
+
+    private static int checked(final int value) {
+        if (value == FAILING) {
+            throw new IllegalStateException(Integer.toString(value));
+        }
+        return value;
+    }
+
+    private static void checkThrows(final String operation, final Callable<?> call) throws Exception {
+        try {
+            call.call();
+            Assert.fail(operation + " ignored exception of a sub-task");
+        } catch (final IllegalStateException e) {
+            // Fork-join pool rethrows a copy of exception, that mentions the original one
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith(Integer.toString(FAILING)));
+        }
+    }
+
+    @Test
+    public void subTaskExceptionTest() throws Exception {
+        final List<Integer> values = IntStream.range(0, 100).boxed().toList();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            for (final IterativeParallelism parallelism : List.of(new IterativeParallelism(),
+                    new IterativeParallelism(mapper), new IterativeParallelism(ForkJoinPool.commonPool(), 8))) {
+                checkThrows("all", () -> parallelism.all(THREADS, values, value -> checked(value) >= 0));
+                checkThrows("any", () -> parallelism.any(THREADS, values, value -> checked(value) < 0));
+                // Match in a later part is not returned, as the failed value may precede a match
+                checkThrows("findFirst", () -> parallelism.findFirst(THREADS, values, value -> checked(value) == 90));
+                checkThrows("maximum", () -> parallelism.maximum(THREADS, values,
+                        Comparator.comparingInt(IterativeParallelismTests::checked)));
+            }
+        }
+    }
+
+    @Test
+    public void findFirstTest() throws InterruptedException {
+        final List<Integer> values = IntStream.range(0, SIZE).boxed().toList();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            for (final IterativeParallelism parallelism : List.of(new IterativeParallelism(),
+                    new IterativeParallelism(mapper))) {
+                for (final int threads : new int[]{1, 3, 8}) {
+                    Assert.assertEquals(Optional.of(999),
+                            parallelism.findFirst(threads, values, value -> value % 1000 == 999));
+                    // Later parts match at once, but the first match is the last value of the first part
+                    final int first = SIZE / threads - 1;
+                    Assert.assertEquals(Optional.of(first),
+                            parallelism.findFirst(threads, values, value -> value >= first));
+                    Assert.assertEquals(Optional.empty(), parallelism.findFirst(threads, values, value -> value < 0));
+                }
+                Assert.assertEquals(Optional.of(2),
+                        parallelism.findFirst(THREADS, List.of(1, 2, 3), value -> value > 1));
+                Assert.assertEquals(Optional.empty(), parallelism.findFirst(THREADS, List.of(), value -> true));
+            }
+        }
+    }
+
+    private static void interruptedCaller(final IterativeParallelism parallelism) throws InterruptedException {
+        final List<Integer> values = IntStream.range(0, SLOW_SIZE).boxed().toList();
+        final AtomicInteger tested = new AtomicInteger();
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final Thread caller = new Thread(() -> {
+            try {
+                parallelism.any(THREADS, values, value -> {
+                    tested.incrementAndGet();
+                    sleep();
+                    return false;
+                });
+            } catch (final Throwable e) {
+                thrown.set(e);
+            }
+        });
+        caller.start();
+        while (tested.get() < THREADS) {
+            Thread.sleep(1);
+        }
+        caller.interrupt();
+        caller.join();
+        Assert.assertTrue("Interruption was not propagated: " + thrown.get(),
+                thrown.get() instanceof InterruptedException);
+        // Values being tested at interruption may finish, but no new ones are started
+        Thread.sleep(100);
+        final int stopped = tested.get();
+        Thread.sleep(100);
+        Assert.assertEquals("Sub-tasks were not cancelled", stopped, tested.get());
+        Assert.assertTrue("any tested " + stopped + " values", stopped < SLOW_SIZE / 10);
+    }
+
+    @Test
+    public void interruptedCallerTest() throws InterruptedException {
+        interruptedCaller(new IterativeParallelism());
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            interruptedCaller(new IterativeParallelism(mapper));
+        }
+    }
+
+    private record Keyed(int key, int index) {
+    }
+
+    private static List<IterativeParallelism> parallelisms(final ParallelMapperImpl mapper) {
+        return List.of(new IterativeParallelism(), new IterativeParallelism(mapper));
+    }
+
+    @Test
+    public void sortedStabilityTest() throws InterruptedException {
+        // Few distinct keys, so most values are equal by comparator and only stability keeps their order
+        final List<Keyed> values = IntStream.range(0, SIZE)
+                .mapToObj(index -> new Keyed((index * 7919) % 10, index))
+                .toList();
+        final Comparator<Keyed> byKey = Comparator.comparingInt(Keyed::key);
+        final List<Keyed> expected = new ArrayList<>(values);
+        expected.sort(byKey);
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            for (final IterativeParallelism parallelism : parallelisms(mapper)) {
+                for (final int threads : new int[]{1, 2, 3, 8}) {
+                    Assert.assertEquals(expected, parallelism.sorted(threads, values, byKey));
+                }
+                Assert.assertEquals(List.of(), parallelism.sorted(THREADS, List.<Keyed>of(), byKey));
+                // More threads than values
+                final List<Keyed> few = List.of(new Keyed(1, 0), new Keyed(0, 1), new Keyed(1, 2));
+                Assert.assertEquals(List.of(few.get(1), few.get(0), few.get(2)), parallelism.sorted(8, few, byKey));
+            }
+        }
+    }
+
+    @Test
+    public void topKTest() throws InterruptedException {
+        final int size = 1000;
+        // Every value is repeated ten times
+        final List<Integer> values = IntStream.range(0, size).mapToObj(index -> (index * 7919) % 100).toList();
+        final List<Integer> descending = values.stream().sorted(Comparator.reverseOrder()).toList();
+        final List<Integer> ascending = values.stream().sorted().toList();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            for (final IterativeParallelism parallelism : parallelisms(mapper)) {
+                for (final int threads : new int[]{1, 3, 8}) {
+                    for (final int k : new int[]{0, 1, 15, size - 1, size, size + 5}) {
+                        final int expected = Math.min(k, size);
+                        Assert.assertEquals("topK " + k, descending.subList(0, expected),
+                                parallelism.topK(threads, values, k, Comparator.naturalOrder()));
+                        Assert.assertEquals("bottomK " + k, ascending.subList(0, expected),
+                                parallelism.bottomK(threads, values, k, Comparator.naturalOrder()));
+                    }
+                }
+                Assert.assertEquals(List.of(), parallelism.topK(THREADS, List.<Integer>of(), 3,
+                        Comparator.naturalOrder()));
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package info.kgeorgiy.ja.chulkov.concurrent.tests;
+
+import info.kgeorgiy.ja.chulkov.concurrent.CancellationToken;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl.Admission;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl.Scheduling;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelMapperStressTests {
+
+    private static final int WORKERS = 64;
+    private static final int CALLERS = 16;
+    private static final int CALLS = 50;
+    private static final int SIZE = 10_007;
+    private static final int FAILING_EACH = 97;
+
+    private record Pair(int index, long check) {
+
+        static Pair of(final int index) {
+            return new Pair(index, ~(long) index * 31);
+        }
+    }
+
+    private static void stress(final Scheduling scheduling, final boolean chunking, final boolean failing)
+            throws InterruptedException, ExecutionException {
+        stress(new ParallelMapperImpl(WORKERS, scheduling, chunking), failing);
+    }
+
+    private static void stress(final ParallelMapperImpl parallelMapper, final boolean failing)
+            throws InterruptedException, ExecutionException {
+        final List<Integer> args = IntStream.range(0, SIZE).boxed().toList();
+        final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try (final ParallelMapperImpl mapper = parallelMapper) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int caller = 0; caller < CALLERS; caller++) {
+                futures.add(callers.submit(() -> {
+                    for (int call = 0; call < CALLS; call++) {
+                        if (failing) {
+                            checkFailing(mapper, args);
+                        } else {
+                            checkResults(mapper.map(Pair::of, args));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void checkResults(final List<Pair> results) {
+        Assert.assertEquals(SIZE, results.size());
+        for (int i = 0; i < SIZE; i++) {
+            Assert.assertEquals("Lost or torn result at " + i, Pair.of(i), results.get(i));
+        }
+    }
+
+    private static void checkFailing(final ParallelMapperImpl mapper, final List<Integer> args)
+            throws InterruptedException {
+        try {
+            mapper.map(it -> {
+                if (it % FAILING_EACH == 0) {
+                    throw new IllegalArgumentException(Integer.toString(it));
+                }
+                return it;
+            }, args);
+            Assert.fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Lost exceptions", (SIZE + FAILING_EACH - 1) / FAILING_EACH,
+                    1 + e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void sharedQueueTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.SHARED_QUEUE, false, false);
+    }
+
+    @Test
+    public void workStealingTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.WORK_STEALING, false, false);
+    }
+
+    @Test
+    public void chunkedSharedQueueTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.SHARED_QUEUE, true, false);
+    }
+
+    @Test
+    public void chunkedWorkStealingTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.WORK_STEALING, true, false);
+    }
+
+    @Test
+    public void fairTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.FAIR, false, false);
+    }
+
+    @Test
+    public void boundedTest() throws InterruptedException, ExecutionException {
+        stress(new ParallelMapperImpl(WORKERS, Scheduling.FAIR, true, WORKERS, Admission.BLOCK), false);
+        stress(new ParallelMapperImpl(WORKERS, Scheduling.WORK_STEALING, false, SIZE / 10, Admission.BLOCK), false);
+    }
+
+    @Test
+    public void elasticTest() throws InterruptedException, ExecutionException {
+        final Duration keepAlive = Duration.ofMillis(1);
+        stress(new ParallelMapperImpl(0, WORKERS, keepAlive), false);
+        stress(new ParallelMapperImpl(1, WORKERS, keepAlive, Scheduling.WORK_STEALING, true, Integer.MAX_VALUE,
+                Admission.BLOCK), false);
+        stress(new ParallelMapperImpl(0, WORKERS, keepAlive, Scheduling.FAIR, false, SIZE / 10, Admission.BLOCK),
+                true);
+    }
+
+    @Test
+    public void elasticRetirementTest() throws InterruptedException, ExecutionException {
+        final int blocked = 8;
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService caller = Executors.newSingleThreadExecutor();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1, WORKERS, Duration.ofMillis(10))) {
+            // Every blocked task holds its worker, so queued ones need new workers
+            final Future<List<Integer>> result = caller.submit(() -> mapper.map(it -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return it;
+            }, IntStream.range(0, blocked).boxed().toList()));
+            awaitWorkers(mapper, workers -> workers >= blocked);
+            Assert.assertTrue("Workers were not started", mapper.getWorkers() >= blocked);
+            release.countDown();
+            Assert.assertEquals(IntStream.range(0, blocked).boxed().toList(), result.get());
+            awaitWorkers(mapper, workers -> workers == 1);
+            Assert.assertEquals("Idle workers were not retired", 1, mapper.getWorkers());
+            checkResults(mapper.map(Pair::of, IntStream.range(0, SIZE).boxed().toList()));
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    private static void awaitWorkers(final ParallelMapperImpl mapper, final IntPredicate condition)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.test(mapper.getWorkers()) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void exceptionsTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.SHARED_QUEUE, false, true);
+    }
+
+    @Test
+    public void chunkedExceptionsTest() throws InterruptedException, ExecutionException {
+        stress(Scheduling.WORK_STEALING, true, true);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void cancelledMapTest() throws InterruptedException {
+        final int cancelAt = 10;
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger applied = new AtomicInteger();
+        // Single worker takes elements in order, so every element after the cancelling one is skipped
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1)) {
+            final List<Integer> results = mapper.map(value -> {
+                applied.incrementAndGet();
+                if (value == cancelAt) {
+                    token.cancel();
+                }
+                return value;
+            }, IntStream.range(0, SIZE).boxed().toList(), token);
+            Assert.assertEquals(SIZE, results.size());
+            for (int i = 0; i < SIZE; i++) {
+                Assert.assertEquals(i <= cancelAt ? Integer.valueOf(i) : null, results.get(i));
+            }
+            Assert.assertEquals(cancelAt + 1, applied.get());
+        }
+    }
+
+    @Test
+    public void interruptedAdmissionTest() throws InterruptedException {
+        final CancellationToken token = new CancellationToken();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread caller = Thread.currentThread();
+        // Single busy worker and room for one task, so caller blocks while admitting the third element
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1, Scheduling.FAIR, false, 1, Admission.BLOCK)) {
+            final Thread interrupter = new Thread(() -> {
+                try {
+                    started.await();
+                    caller.interrupt();
+                } catch (final InterruptedException ignored) {
+                }
+            });
+            interrupter.start();
+            try {
+                mapper.map(value -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return value;
+                }, IntStream.range(0, SIZE).boxed().toList(), token);
+                Assert.fail("Interrupted admission completed");
+            } catch (final InterruptedException ignored) {
+            }
+            Assert.assertTrue("Admitted elements are not skipped", token.isCancelled());
+            release.countDown();
+            interrupter.join();
+        }
+    }
+
+    private static final int WINDOW = 16;
+
+    @Test
+    public void mapOrderedTest() {
+        final int size = 1000;
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicInteger aheadOfWindow = new AtomicInteger();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(8)) {
+            final Iterator<Integer> results = mapper.<Integer, Integer>mapOrdered(value -> {
+                if (value >= consumed.get() + WINDOW) {
+                    aheadOfWindow.incrementAndGet();
+                }
+                // Every seventh value is slow, so values after it finish first
+                if (value % 7 == 0) {
+                    sleep();
+                }
+                return value * 2;
+            }, IntStream.range(0, size).boxed().toList(), WINDOW).iterator();
+            for (int i = 0; i < size; i++) {
+                Assert.assertTrue(results.hasNext());
+                Assert.assertEquals("Result out of order", Integer.valueOf(i * 2), results.next());
+                consumed.incrementAndGet();
+                if (i % 100 == 0) {
+                    // Slow consumer lets workers run ahead as far as the window allows
+                    sleep();
+                }
+            }
+            Assert.assertFalse(results.hasNext());
+        }
+        Assert.assertEquals("Values started beyond window", 0, aheadOfWindow.get());
+    }
+
+    @Test
+    public void mapOrderedExceptionTest() {
+        final int failing = 50;
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(8)) {
+            final Iterator<Integer> results = mapper.<Integer, Integer>mapOrdered(value -> {
+                if (value == failing) {
+                    throw new IllegalArgumentException(Integer.toString(value));
+                }
+                return value;
+            }, IntStream.range(0, SIZE).boxed().toList(), WINDOW).iterator();
+            for (int i = 0; i < failing; i++) {
+                Assert.assertEquals(Integer.valueOf(i), results.next());
+            }
+            try {
+                results.next();
+                Assert.fail("Exception expected");
+            } catch (final IllegalArgumentException e) {
+                Assert.assertEquals(Integer.toString(failing), e.getMessage());
+            }
+            // Exception is delivered in place of its result, the rest follow
+            Assert.assertEquals(Integer.valueOf(failing + 1), results.next());
+        }
+    }
+
+    @Test
+    public void mapOrderedCloseTest() throws InterruptedException {
+        final AtomicInteger applied = new AtomicInteger();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(8)) {
+            try (final Stream<Integer> results = mapper.mapOrdered(value -> {
+                applied.incrementAndGet();
+                return value;
+            }, IntStream.range(0, SIZE).boxed().toList(), WINDOW)) {
+                Assert.assertEquals(IntStream.range(0, 10).boxed().toList(), results.limit(10).toList());
+            }
+            Thread.sleep(100);
+            Assert.assertTrue("Values applied after close: " + applied.get(), applied.get() <= 10 + WINDOW);
+            // Mapper is still usable
+            checkResults(mapper.map(Pair::of, IntStream.range(0, SIZE).boxed().toList()));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package info.kgeorgiy.ja.chulkov.concurrent.tests;
+
+import info.kgeorgiy.ja.chulkov.concurrent.DoubleIP;
+import info.kgeorgiy.ja.chulkov.concurrent.IntIP;
+import info.kgeorgiy.ja.chulkov.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.chulkov.concurrent.LongIP;
+import info.kgeorgiy.ja.chulkov.concurrent.ParallelMapperImpl;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrimitiveIPTests {
+
+    private static final int SIZE = 10_007;
+    private static final int THREADS = 4;
+    private static final int[] THREAD_COUNTS = {1, 2, 3, 8, 64};
+
+    private interface ParallelismConsumer {
+        void accept(IterativeParallelism parallelism) throws InterruptedException;
+    }
+
+    private static void forEachParallelism(final ParallelismConsumer consumer) throws InterruptedException {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(THREADS)) {
+            for (final IterativeParallelism parallelism : List.of(
+                    new IterativeParallelism(),
+                    new IterativeParallelism(mapper),
+                    new IterativeParallelism(ForkJoinPool.commonPool(), 8)
+            )) {
+                consumer.accept(parallelism);
+            }
+        }
+    }
+
+    private interface Call {
+        void run() throws InterruptedException;
+    }
+
+    private static void checkNoSuchElement(final String message, final Call call) throws InterruptedException {
+        try {
+            call.run();
+            Assert.fail(message + " of no values");
+        } catch (final NoSuchElementException ignored) {
+        }
+    }
+
+    @Test
+    public void emptyTest() throws InterruptedException {
+        forEachParallelism(parallelism -> {
+            final IntIP ints = parallelism.ints();
+            final int[] intValues = {};
+            checkNoSuchElement("int maximum", () -> ints.maximum(THREADS, intValues));
+            checkNoSuchElement("int minimum", () -> ints.minimum(THREADS, intValues));
+            Assert.assertEquals(0, ints.count(THREADS, intValues, value -> true));
+            Assert.assertEquals(0, ints.sum(THREADS, intValues));
+            Assert.assertEquals(1, ints.reduce(THREADS, intValues, new IntIP.Monoid(1, (a, b) -> a * b)));
+            Assert.assertArrayEquals(intValues, ints.filter(THREADS, intValues, value -> true));
+
+            final LongIP longs = parallelism.longs();
+            final long[] longValues = {};
+            checkNoSuchElement("long maximum", () -> longs.maximum(THREADS, longValues));
+            checkNoSuchElement("long minimum", () -> longs.minimum(THREADS, longValues));
+            Assert.assertEquals(0, longs.count(THREADS, longValues, value -> true));
+            Assert.assertEquals(0, longs.sum(THREADS, longValues));
+            Assert.assertEquals(1, longs.reduce(THREADS, longValues, new LongIP.Monoid(1, (a, b) -> a * b)));
+            Assert.assertArrayEquals(longValues, longs.filter(THREADS, longValues, value -> true));
+
+            final DoubleIP doubles = parallelism.doubles();
+            final double[] doubleValues = {};
+            checkNoSuchElement("double maximum", () -> doubles.maximum(THREADS, doubleValues));
+            checkNoSuchElement("double minimum", () -> doubles.minimum(THREADS, doubleValues));
+            Assert.assertEquals(0, doubles.count(THREADS, doubleValues, value -> true));
+            Assert.assertEquals(0, doubles.sum(THREADS, doubleValues), 0);
+            Assert.assertEquals(1, doubles.reduce(THREADS, doubleValues, new DoubleIP.Monoid(1, (a, b) -> a * b)), 0);
+            Assert.assertArrayEquals(doubleValues, doubles.filter(THREADS, doubleValues, value -> true), 0);
+        });
+    }
+
+    @Test
+    public void moreThreadsThanValuesTest() throws InterruptedException {
+        final int[] intValues = {5, -3, 8};
+        final long[] longValues = {5, -3, 8};
+        final double[] doubleValues = {5, -3, 8};
+        forEachParallelism(parallelism -> {
+            for (final int threads : THREAD_COUNTS) {
+                final IntIP ints = parallelism.ints();
+                Assert.assertEquals(8, ints.maximum(threads, intValues));
+                Assert.assertEquals(-3, ints.minimum(threads, intValues));
+                Assert.assertEquals(2, ints.count(threads, intValues, value -> value > 0));
+                Assert.assertEquals(10, ints.sum(threads, intValues));
+                Assert.assertArrayEquals(new int[]{5, 8}, ints.filter(threads, intValues, value -> value > 0));
+
+                final LongIP longs = parallelism.longs();
+                Assert.assertEquals(8, longs.maximum(threads, longValues));
+                Assert.assertEquals(-3, longs.minimum(threads, longValues));
+                Assert.assertEquals(2, longs.count(threads, longValues, value -> value > 0));
+                Assert.assertEquals(10, longs.sum(threads, longValues));
+                Assert.assertArrayEquals(new long[]{5, 8}, longs.filter(threads, longValues, value -> value > 0));
+
+                final DoubleIP doubles = parallelism.doubles();
+                Assert.assertEquals(8, doubles.maximum(threads, doubleValues), 0);
+                Assert.assertEquals(-3, doubles.minimum(threads, doubleValues), 0);
+                Assert.assertEquals(2, doubles.count(threads, doubleValues, value -> value > 0));
+                Assert.assertEquals(10, doubles.sum(threads, doubleValues), 0);
+                Assert.assertArrayEquals(new double[]{5, 8}, doubles.filter(threads, doubleValues, value -> value > 0),
+                        0);
+            }
+        });
+    }
+
+    @Test
+    public void sumOverflowTest() throws InterruptedException {
+        final int[] intValues = new int[SIZE];
+        Arrays.fill(intValues, Integer.MAX_VALUE);
+        // Long sum wraps around the same way as a sequential one
+        final long[] longValues = LongStream.range(0, SIZE).map(index -> Long.MAX_VALUE - index).toArray();
+        // Compensated summation keeps small values next to large ones
+        final double[] doubleValues = DoubleStream.concat(DoubleStream.of(1e16), DoubleStream.generate(() -> 1)
+                .limit(SIZE)).toArray();
+        forEachParallelism(parallelism -> {
+            for (final int threads : THREAD_COUNTS) {
+                Assert.assertEquals((long) Integer.MAX_VALUE * SIZE, parallelism.ints().sum(threads, intValues));
+                Assert.assertEquals(LongStream.of(longValues).sum(), parallelism.longs().sum(threads, longValues));
+                Assert.assertEquals(1e16 + SIZE, parallelism.doubles().sum(threads, doubleValues), 0);
+            }
+        });
+    }
+
+    @Test
+    public void filterOrderTest() throws InterruptedException {
+        final Random random = new Random(8045);
+        final int[] intValues = random.ints(SIZE, -1000, 1000).toArray();
+        final long[] longValues = random.longs(SIZE).toArray();
+        final double[] doubleValues = random.doubles(SIZE, -1, 1).toArray();
+        final IntPredicate odd = value -> value % 2 != 0;
+        forEachParallelism(parallelism -> {
+            for (final int threads : THREAD_COUNTS) {
+                Assert.assertArrayEquals(
+                        IntStream.of(intValues).filter(odd).toArray(),
+                        parallelism.ints().filter(threads, intValues, odd)
+                );
+                Assert.assertArrayEquals(
+                        LongStream.of(longValues).filter(value -> value % 3 == 0).toArray(),
+                        parallelism.longs().filter(threads, longValues, value -> value % 3 == 0)
+                );
+                Assert.assertArrayEquals(
+                        DoubleStream.of(doubleValues).filter(value -> value > 0.5).toArray(),
+                        parallelism.doubles().filter(threads, doubleValues, value -> value > 0.5),
+                        0
+                );
+            }
+        });
+    }
+}
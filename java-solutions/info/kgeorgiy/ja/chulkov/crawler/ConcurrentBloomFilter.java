@@ -0,0 +1,63 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings with atomic claim of first sight. Bits are read and written atomically; claims of strings
+ * with the same hash are serialized by one of {@link #STRIPES} locks, so two threads never both claim a string.
+ */
+class ConcurrentBloomFilter {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray bits;
+    private final long size;
+    private final int hashes;
+    private final Object[] locks = new Object[STRIPES];
+
+    ConcurrentBloomFilter(final long expectedInsertions, final double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected positive insertions and false positive rate in (0, 1)");
+        }
+        final double ln2 = Math.log(2);
+        final long optimalSize = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        final int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalSize + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.size = (long) words * Long.SIZE;
+        this.hashes = Math.max(1, (int) Math.round((double) size / expectedInsertions * ln2));
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds string to filter.
+     *
+     * @param value string to add
+     * @return {@code true} if string was definitely absent, {@code false} if it was probably added before
+     */
+    boolean add(final String value) {
+        final long hash = hash(value);
+        final long h1 = hash & Integer.MAX_VALUE;
+        final long h2 = (hash >>> Integer.SIZE) | 1;
+        synchronized (locks[(int) (h1 % STRIPES)]) {
+            boolean added = false;
+            for (int i = 0; i < hashes; i++) {
+                final long bit = (h1 + i * h2) % size;
+                final long mask = 1L << bit;
+                added |= (bits.getAndAccumulate((int) (bit >>> 6), mask, (word, it) -> word | it) & mask) == 0;
+            }
+            return added;
+        }
+    }
+
+    private static long hash(final String value) {
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ (hash >>> 29);
+    }
+}
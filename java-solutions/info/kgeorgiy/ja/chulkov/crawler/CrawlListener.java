@@ -0,0 +1,27 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import java.io.IOException;
+
+/**
+ * Receiver of crawl events from {@link WebCrawler#download(String, int, CrawlListener, int)}. Events are delivered
+ * one by one in the thread that started the crawl, as pages are downloaded.
+ */
+public interface CrawlListener {
+
+    /**
+     * Called when page is downloaded.
+     *
+     * @param url      page url
+     * @param document downloaded page
+     */
+    void onDownloaded(String url, Document document);
+
+    /**
+     * Called when page can not be downloaded or its links can not be extracted.
+     *
+     * @param url       page url
+     * @param exception cause of error
+     */
+    void onError(String url, IOException exception);
+}
@@ -0,0 +1,184 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Append-only log of a crawl. Every line is a tab-separated record:
+ * <ul>
+ *     <li>{@code C depth url} &mdash; crawl root, the first record;</li>
+ *     <li>{@code V depth url} &mdash; url is visited with this remaining depth;</li>
+ *     <li>{@code D url} &mdash; url is downloaded;</li>
+ *     <li>{@code E url message} &mdash; url failed with this message;</li>
+ *     <li>{@code F depth url} &mdash; links of url are visited with this remaining depth.</li>
+ * </ul>
+ * A url visited with more depth than it was followed with is pending. Log is flushed on {@code F} records only, as
+ * records of a page are written before its {@code F} record, and a crash loses only records of pages that are still
+ * pending and processed again. Incomplete last line, left by a crash, is discarded; a log without complete root record
+ * is started anew.
+ */
+class CrawlLog implements AutoCloseable {
+
+    private final BufferedWriter writer;
+    private final Map<String, Integer> followed = new HashMap<>();
+    private final Map<String, Integer> pending = new HashMap<>();
+    private final Set<String> downloaded = new HashSet<>();
+    private final Map<String, IOException> errors = new HashMap<>();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private String root = null;
+
+    /**
+     * Opens log, restoring state of a previous crawl from it. Log is read record by record, keeping only the last
+     * followed depth of every url and urls that are still pending.
+     *
+     * @throws IllegalArgumentException if log belongs to a crawl with other root or depth
+     */
+    CrawlLog(final Path path, final String url, final int depth) throws IOException {
+        // Bytes after the last line feed are a record cut by a crash, possibly in the middle of a character
+        long complete = 0;
+        if (Files.exists(path)) {
+            try (final InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                final ByteArrayOutputStream line = new ByteArrayOutputStream();
+                for (int b = in.read(); b != -1; b = in.read()) {
+                    if (b == '\n') {
+                        restore(line.toString(StandardCharsets.UTF_8), url, depth);
+                        complete += line.size() + 1;
+                        line.reset();
+                    } else {
+                        line.write(b);
+                    }
+                }
+            }
+        }
+        try (final FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(complete);
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        if (root == null) {
+            write(false, "C", Integer.toString(depth), url);
+        }
+    }
+
+    private void restore(final String line, final String url, final int depth) {
+        if (root == null) {
+            if (!line.equals(String.join("\t", "C", Integer.toString(depth), url))) {
+                throw new IllegalArgumentException("Log belongs to other crawl: " + line);
+            }
+            root = line;
+            return;
+        }
+        final String[] record = line.split("\t", 3);
+        try {
+            switch (record[0]) {
+                case "V" -> {
+                    final int visited = Integer.parseInt(record[1]);
+                    if (visited > followed.getOrDefault(record[2], 0)) {
+                        pending.merge(record[2], visited, Math::max);
+                    }
+                }
+                case "F" -> {
+                    final int depthFollowed = followed.merge(record[2], Integer.parseInt(record[1]), Math::max);
+                    pending.computeIfPresent(record[2], (ignored, visited) -> visited > depthFollowed ? visited : null);
+                }
+                case "D" -> downloaded.add(record[1]);
+                case "E" -> errors.put(record[1], new IOException(record.length > 2 ? record[2] : null));
+                default -> {
+                    // Incomplete record
+                }
+            }
+        } catch (final NumberFormatException | ArrayIndexOutOfBoundsException ignored) {
+            // Incomplete record
+        }
+    }
+
+    /**
+     * Returns whether any page was recorded by a previous crawl.
+     */
+    boolean resumed() {
+        return !followed.isEmpty() || !pending.isEmpty();
+    }
+
+    /**
+     * Returns the most depth every url was followed with. Url may be pending with more depth.
+     */
+    Map<String, Integer> followed() {
+        return followed;
+    }
+
+    /**
+     * Returns the most depth every pending url was visited with.
+     */
+    Map<String, Integer> pending() {
+        return pending;
+    }
+
+    Set<String> downloaded() {
+        return downloaded;
+    }
+
+    Map<String, IOException> errors() {
+        return errors;
+    }
+
+    void visit(final String url, final int depth) {
+        write(false, "V", Integer.toString(depth), url);
+    }
+
+    void follow(final String url, final int depth) {
+        write(true, "F", Integer.toString(depth), url);
+    }
+
+    void download(final String url) {
+        write(false, "D", url);
+    }
+
+    void error(final String url, final IOException e) {
+        final String message = e.getMessage();
+        write(false, "E", url, message == null ? "" : message.replaceAll("[\t\r\n]", " "));
+    }
+
+    /**
+     * Writes record as one call, so that records of concurrent writers are not mixed by the writer lock.
+     */
+    private void write(final boolean flush, final String... fields) {
+        try {
+            writer.write(String.join("\t", fields) + "\n");
+            if (flush) {
+                writer.flush();
+            }
+        } catch (final IOException e) {
+            failure.compareAndSet(null, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rethrows the first failure to write the log, if any.
+     */
+    void checkFailure() throws IOException {
+        final IOException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+/**
+ * Management interface of {@link WebCrawler}. Histogram bucket {@code i} counts durations in {@code [2^i, 2^(i+1))}
+ * nanoseconds.
+ */
+public interface CrawlerMXBean {
+
+    /**
+     * Returns number of downloaded pages.
+     *
+     * @return downloaded pages
+     */
+    long getPagesDownloaded();
+
+    /**
+     * Returns number of download and extraction errors.
+     *
+     * @return errors
+     */
+    long getErrors();
+
+    /**
+     * Returns downloaded pages per second, counting only time when some crawl was running.
+     *
+     * @return crawl throughput
+     */
+    double getPagesPerSecond();
+
+    /**
+     * Returns number of running downloads.
+     *
+     * @return running downloads
+     */
+    int getRunningDownloads();
+
+    /**
+     * Returns number of downloads waiting for host limits.
+     *
+     * @return parked downloads
+     */
+    int getParkedDownloads();
+
+    /**
+     * Returns number of running link extractions.
+     *
+     * @return running extractions
+     */
+    int getRunningExtractions();
+
+    /**
+     * Returns total time of link extractions.
+     *
+     * @return extraction nanoseconds
+     */
+    long getExtractionNanos();
+
+    /**
+     * Returns total time downloads waited for host and shared limits.
+     *
+     * @return wait nanoseconds
+     */
+    long getWaitNanos();
+
+    /**
+     * Returns hosts, that pages were downloaded from.
+     *
+     * @return known hosts
+     */
+    String[] getHosts();
+
+    /**
+     * Returns histogram of download latencies of host.
+     *
+     * @param host host name
+     * @return latency histogram, empty for unknown host
+     */
+    long[] getHostLatencyHistogram(String host);
+
+    /**
+     * Returns current adaptive limit of concurrent downloads from host.
+     *
+     * @param host host name
+     * @return host limit, zero for unknown host
+     */
+    int getHostLimit(String host);
+}
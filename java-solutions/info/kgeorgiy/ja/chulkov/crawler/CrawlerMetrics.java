@@ -0,0 +1,30 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import java.util.Map;
+
+/**
+ * Snapshot of {@link WebCrawler} metrics.
+ *
+ * @param pagesDownloaded    number of downloaded pages
+ * @param errors             number of download and extraction errors
+ * @param pagesPerSecond     downloaded pages per second of crawling
+ * @param runningDownloads   number of running downloads
+ * @param parkedDownloads    number of downloads waiting for host limits
+ * @param runningExtractions number of running link extractions
+ * @param extractionNanos    total time of link extractions
+ * @param waitNanos          total time downloads waited for host and shared limits
+ * @param hosts              metrics of every host
+ */
+public record CrawlerMetrics(
+        long pagesDownloaded,
+        long errors,
+        double pagesPerSecond,
+        int runningDownloads,
+        int parkedDownloads,
+        int runningExtractions,
+        long extractionNanos,
+        long waitNanos,
+        Map<String, HostMetrics> hosts
+) {
+
+}
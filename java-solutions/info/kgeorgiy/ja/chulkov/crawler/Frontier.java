@@ -0,0 +1,140 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Scheduler of downloads of all crawls of a {@link WebCrawler}. At most {@code slots} downloads run at once and the
+ * executor never gets more, so it does not queue anything itself. When a slot frees, hosts that have waiting
+ * downloads and room under their limits take turns in round-robin order, and a host starts its best waiting
+ * download, so a host with many links does not monopolize downloads.
+ */
+class Frontier {
+
+    private final Downloader downloader;
+    private final ExecutorService executor;
+    private final int slots;
+    private final int perHost;
+    private final ToDoubleFunction<String> score;
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    private final Queue<HostQueue> ready = new ArrayDeque<>();
+    private int running = 0;
+    private long sequence = 0;
+
+    Frontier(final Downloader downloader, final ExecutorService executor, final int slots, final int perHost,
+            final ToDoubleFunction<String> score) {
+        this.downloader = downloader;
+        this.executor = executor;
+        this.slots = slots;
+        this.perHost = perHost;
+        this.score = score;
+    }
+
+    CompletableFuture<Document> download(final String host, final String url, final int depth) {
+        final HostQueue queue = hosts.computeIfAbsent(host, ignored -> new HostQueue(perHost));
+        final double urlScore = score.applyAsDouble(url);
+        final CompletableFuture<Document> future = new CompletableFuture<>();
+        synchronized (this) {
+            queue.add(new Download(queue, url, depth, urlScore, sequence++, System.nanoTime(), future));
+            schedule(queue);
+            dispatch();
+        }
+        return future;
+    }
+
+    synchronized Map<String, HostMetrics> metrics() {
+        final Map<String, HostMetrics> metrics = new TreeMap<>();
+        hosts.forEach((host, queue) -> metrics.put(host, queue.metrics()));
+        return metrics;
+    }
+
+    synchronized HostMetrics metrics(final String host) {
+        final HostQueue queue = hosts.get(host);
+        return queue == null ? null : queue.metrics();
+    }
+
+    private void schedule(final HostQueue queue) {
+        if (queue.ready() && queue.schedule()) {
+            ready.add(queue);
+        }
+    }
+
+    private void dispatch() {
+        while (running < slots && !ready.isEmpty()) {
+            final HostQueue queue = ready.poll();
+            queue.unschedule();
+            // Limit of a scheduled host may have shrunk since then
+            if (queue.ready()) {
+                final Download download = queue.start();
+                running++;
+                schedule(queue);
+                execute(download);
+            }
+        }
+    }
+
+    private void execute(final Download download) {
+        try {
+            executor.execute(() -> run(download));
+        } catch (final RejectedExecutionException e) {
+            running--;
+            download.host.cancelled();
+            download.future.completeExceptionally(e);
+        }
+    }
+
+    private void run(final Download download) {
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            download.future.complete(downloader.download(download.url));
+            success = true;
+        } catch (final IOException | RuntimeException | Error e) {
+            download.future.completeExceptionally(e);
+        } finally {
+            finished(download, success, System.nanoTime() - start, start - download.submitted);
+        }
+    }
+
+    private synchronized void finished(final Download download, final boolean success, final long nanos,
+            final long wait) {
+        running--;
+        download.host.finished(success, nanos, wait);
+        schedule(download.host);
+        dispatch();
+    }
+
+    /**
+     * Waiting download. Downloads with more remaining depth go first, then ones with higher score, then older ones.
+     */
+    record Download(
+            HostQueue host,
+            String url,
+            int depth,
+            double score,
+            long sequence,
+            long submitted,
+            CompletableFuture<Document> future
+    ) implements Comparable<Download> {
+
+        private static final Comparator<Download> ORDER = Comparator.comparingInt(Download::depth).reversed()
+                .thenComparing(Comparator.comparingDouble(Download::score).reversed())
+                .thenComparingLong(Download::sequence);
+
+        @Override
+        public int compareTo(final Download other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
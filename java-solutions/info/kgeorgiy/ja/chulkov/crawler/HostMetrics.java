@@ -0,0 +1,16 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+/**
+ * Snapshot of metrics of one host. Histogram bucket {@code i} counts durations in {@code [2^i, 2^(i+1))} nanoseconds.
+ *
+ * @param limit            current adaptive limit of concurrent downloads
+ * @param running          number of running downloads
+ * @param parked           number of downloads waiting in the frontier
+ * @param downloads        number of finished downloads, successful or not
+ * @param waitNanos        total time downloads waited in the frontier
+ * @param latencyHistogram histogram of download latencies
+ */
+public record HostMetrics(int limit, int running, int parked, long downloads, long waitNanos,
+                          long[] latencyHistogram) {
+
+}
@@ -0,0 +1,82 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import java.util.PriorityQueue;
+
+/**
+ * Downloads of one host, waiting in {@link Frontier}. At most {@code limit} downloads of a host run at once; the
+ * others wait here, shallow ones first, then ones with higher score, then in submission order. All methods are
+ * called under the frontier lock.
+ * <p>
+ * Limit starts at {@code maxLimit}. It is halved relative to current concurrency when a download fails or takes
+ * {@link #SPIKE_FACTOR} times longer than average, and grows by one after a download not slower than average.
+ */
+class HostQueue {
+
+    private static final int SPIKE_FACTOR = 4;
+
+    private final int maxLimit;
+    private final PriorityQueue<Frontier.Download> parked = new PriorityQueue<>();
+    private int limit;
+    private int running = 0;
+    private long averageNanos = 0;
+    private long downloads = 0;
+    private long waitNanos = 0;
+    private final long[] latencies = new long[Long.SIZE];
+    private boolean scheduled = false;
+
+    HostQueue(final int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    void add(final Frontier.Download download) {
+        parked.add(download);
+    }
+
+    boolean ready() {
+        return running < limit && !parked.isEmpty();
+    }
+
+    /**
+     * Marks host as waiting in the round-robin queue of frontier.
+     *
+     * @return {@code false} if host was already marked
+     */
+    boolean schedule() {
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    void unschedule() {
+        scheduled = false;
+    }
+
+    Frontier.Download start() {
+        running++;
+        return parked.poll();
+    }
+
+    void cancelled() {
+        running--;
+    }
+
+    void finished(final boolean success, final long nanos, final long wait) {
+        running--;
+        downloads++;
+        waitNanos += wait;
+        latencies[nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos)]++;
+        if (!success || averageNanos != 0 && nanos > SPIKE_FACTOR * averageNanos) {
+            limit = Math.max(1, Math.min(limit, running + 1) / 2);
+        } else if (nanos <= averageNanos && limit < maxLimit) {
+            limit++;
+        }
+        averageNanos = averageNanos == 0 ? nanos : (averageNanos * 7 + nanos) / 8;
+    }
+
+    HostMetrics metrics() {
+        return new HostMetrics(limit, running, parked.size(), downloads, waitNanos, latencies.clone());
+    }
+}
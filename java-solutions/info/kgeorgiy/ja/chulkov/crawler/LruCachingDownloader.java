@@ -0,0 +1,346 @@
+package info.kgeorgiy.ja.chulkov.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Downloader} decorator, that caches downloaded pages in memory. Cache is bounded by estimated size of pages
+ * and evicts least recently used ones. A page is kept as its extracted links: until links are extracted for the
+ * first time, it is counted as {@link #UNEXTRACTED_BYTES}.
+ * <p>
+ * If spill directory is specified, evicted pages are written there and read back on cache miss. A page evicted before
+ * its links are extracted stays in memory until they are, and then is spilled. Spill directory is not bounded and is
+ * not cleaned. A page, which links can not be extracted, is not cached.
+ * <p>
+ * Concurrent misses on the same url share one download.
+ */
+public class LruCachingDownloader implements Downloader {
+
+    private static final long UNEXTRACTED_BYTES = 16 * 1024;
+    private static final long ENTRY_BYTES = 64;
+
+    private final Downloader downloader;
+    private final long maxBytes;
+    private final Path spillDirectory;
+    private final LinkedHashMap<String, CachedDocument> cache = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Evicted pages, that are not written to spill directory yet. Guarded by the cache lock.
+     */
+    private final Map<String, CachedDocument> spilling = new HashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<CachedDocument>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long bytes = 0;
+
+    /**
+     * Creates in-memory cache.
+     *
+     * @param downloader downloader of missing pages
+     * @param maxBytes   maximal estimated size of cached pages
+     */
+    public LruCachingDownloader(final Downloader downloader, final long maxBytes) {
+        this(downloader, maxBytes, null);
+    }
+
+    /**
+     * Creates cache, that spills evicted pages to disk.
+     *
+     * @param downloader     downloader of missing pages
+     * @param maxBytes       maximal estimated size of pages cached in memory
+     * @param spillDirectory directory for evicted pages, or {@code null} to drop them
+     */
+    public LruCachingDownloader(final Downloader downloader, final long maxBytes, final Path spillDirectory) {
+        this.downloader = Objects.requireNonNull(downloader);
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must be non-negative");
+        }
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    public Document download(final String url) throws IOException {
+        final CachedDocument cached = cached(url);
+        if (cached != null) {
+            return cached;
+        }
+        final CompletableFuture<CachedDocument> load = new CompletableFuture<>();
+        final CompletableFuture<CachedDocument> running = loading.putIfAbsent(url, load);
+        if (running != null) {
+            hits.increment();
+            return await(running);
+        }
+        try {
+            load.complete(load(url));
+        } catch (final IOException | RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(url, load);
+        }
+        return load.join();
+    }
+
+    private CachedDocument cached(final String url) {
+        synchronized (cache) {
+            CachedDocument cached = cache.get(url);
+            if (cached == null) {
+                cached = spilling.get(url);
+            }
+            if (cached != null) {
+                hits.increment();
+            }
+            return cached;
+        }
+    }
+
+    private CachedDocument load(final String url) throws IOException {
+        // Another load of url may have finished after the cache was checked
+        final CachedDocument cached = cached(url);
+        if (cached != null) {
+            return cached;
+        }
+        final List<String> spilled = readSpilled(url);
+        if (spilled != null) {
+            diskHits.increment();
+            return put(url, new CachedDocument(url, spilled));
+        }
+        misses.increment();
+        return put(url, new CachedDocument(url, downloader.download(url)));
+    }
+
+    private static CachedDocument await(final CompletableFuture<CachedDocument> load) throws IOException {
+        try {
+            return load.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof final RuntimeException cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Returns snapshot of cache statistics.
+     *
+     * @return cache statistics
+     */
+    public Stats stats() {
+        synchronized (cache) {
+            return new Stats(hits.sum(), diskHits.sum(), misses.sum(), evictions.sum(), cache.size(), bytes);
+        }
+    }
+
+    private CachedDocument put(final String url, final CachedDocument document) {
+        final List<CachedDocument> evicted = new ArrayList<>();
+        synchronized (cache) {
+            final CachedDocument previous = cache.put(url, document);
+            if (previous != null) {
+                previous.cached = false;
+                bytes -= previous.bytes;
+            }
+            document.cached = true;
+            bytes += document.bytes;
+            evict(evicted);
+        }
+        spill(evicted);
+        return document;
+    }
+
+    private void resized(final CachedDocument document, final long newBytes) {
+        final List<CachedDocument> evicted = new ArrayList<>();
+        synchronized (cache) {
+            if (document.cached) {
+                bytes += newBytes - document.bytes;
+            } else if (spilling.get(document.url) == document) {
+                // Page was evicted before its links were known, so it could not be spilled then
+                evicted.add(document);
+            }
+            document.bytes = newBytes;
+            evict(evicted);
+        }
+        spill(evicted);
+    }
+
+    /**
+     * Forgets page, which links can not be extracted.
+     */
+    private void failed(final CachedDocument document) {
+        synchronized (cache) {
+            if (cache.remove(document.url, document)) {
+                document.cached = false;
+                bytes -= document.bytes;
+            }
+            spilling.remove(document.url, document);
+        }
+    }
+
+    private void evict(final List<CachedDocument> evicted) {
+        final Iterator<CachedDocument> iterator = cache.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            final CachedDocument eldest = iterator.next();
+            iterator.remove();
+            eldest.cached = false;
+            bytes -= eldest.bytes;
+            evictions.increment();
+            if (spillDirectory != null) {
+                // Page is still found in memory until it is found on disk
+                spilling.put(eldest.url, eldest);
+                evicted.add(eldest);
+            }
+        }
+    }
+
+    private void spill(final List<CachedDocument> evicted) {
+        for (final CachedDocument document : evicted) {
+            final List<String> links = document.links();
+            if (links == null) {
+                // Page is spilled once its links are extracted
+                continue;
+            }
+            final List<String> lines = new ArrayList<>(links.size() + 1);
+            lines.add(document.url);
+            lines.addAll(links);
+            try {
+                write(spillFile(document.url), lines);
+            } catch (final IOException ignored) {
+                // Page is dropped, as without spill directory
+            }
+            synchronized (cache) {
+                spilling.remove(document.url, document);
+            }
+        }
+    }
+
+    /**
+     * Writes file atomically, so concurrent readers never see a part of it.
+     */
+    private void write(final Path file, final List<String> lines) throws IOException {
+        Files.createDirectories(spillDirectory);
+        final Path temporary = Files.createTempFile(spillDirectory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, lines, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    private List<String> readSpilled(final String url) throws IOException {
+        if (spillDirectory == null) {
+            return null;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(spillFile(url), StandardCharsets.UTF_8);
+            // First line is the url itself, to tell hash collisions from spilled pages
+            return !lines.isEmpty() && lines.get(0).equals(url) ? List.copyOf(lines.subList(1, lines.size())) : null;
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private Path spillFile(final String url) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return spillDirectory.resolve(HexFormat.of().formatHex(hash));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+    }
+
+    private static long linksBytes(final List<String> links) {
+        return ENTRY_BYTES + links.stream().mapToLong(link -> ENTRY_BYTES + 2L * link.length()).sum();
+    }
+
+    /**
+     * Statistics of {@link LruCachingDownloader}.
+     *
+     * @param hits      number of pages found in memory, including pages being loaded by another thread
+     * @param diskHits  number of pages read from spill directory
+     * @param misses    number of downloaded pages
+     * @param evictions number of pages evicted from memory
+     * @param pages     number of pages in memory
+     * @param bytes     estimated size of pages in memory
+     */
+    public record Stats(long hits, long diskHits, long misses, long evictions, int pages, long bytes) {
+    }
+
+    /**
+     * Cached page. Links of downloaded page are extracted once and the original document is released. Size and
+     * presence in cache are guarded by the cache lock.
+     */
+    private class CachedDocument implements Document {
+
+        private final String url;
+        private Document document;
+        private List<String> links;
+        private long bytes;
+        private boolean cached = false;
+
+        private CachedDocument(final String url, final Document document) {
+            this.url = url;
+            this.document = document;
+            this.bytes = UNEXTRACTED_BYTES;
+        }
+
+        private CachedDocument(final String url, final List<String> links) {
+            this.url = url;
+            this.links = links;
+            this.bytes = linksBytes(links);
+        }
+
+        private synchronized List<String> links() {
+            return links;
+        }
+
+        @Override
+        public List<String> extractLinks() throws IOException {
+            final List<String> extracted;
+            synchronized (this) {
+                if (links != null) {
+                    return links;
+                }
+                try {
+                    extracted = List.copyOf(document.extractLinks());
+                } catch (final IOException | RuntimeException e) {
+                    failed(this);
+                    throw e;
+                }
+                links = extracted;
+                document = null;
+            }
+            resized(this, linksBytes(extracted));
+            return extracted;
+        }
+    }
+}
@@ -7,40 +7,109 @@ import info.kgeorgiy.java.advanced.crawler.Downloader;
 import info.kgeorgiy.java.advanced.crawler.Result;
 import info.kgeorgiy.java.advanced.crawler.URLUtils;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
-public class WebCrawler implements AdvancedCrawler {
+public class WebCrawler implements AdvancedCrawler, CrawlerMXBean {
+
+    private static final double FALSE_POSITIVE_RATE = 1e-6;
+    private static final Runnable END_OF_EVENTS = () -> {};
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
 
-    private final ConcurrentHashMap<String, Semaphore> hostLimit = new ConcurrentHashMap<>();
     private final ExecutorService downoloadExecutorService;
     private final ExecutorService extractorExecutorService;
-    private final Downloader downloader;
-    private final int perHost;
+    private final Frontier frontier;
+    private final long expectedUrls;
+    private final LongAdder pagesDownloaded = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder extractionNanos = new LongAdder();
+    private final AtomicInteger runningExtractions = new AtomicInteger();
+    private final Object crawlTime = new Object();
+    private int activeCrawls = 0;
+    private long crawlStart = 0;
+    private long crawlNanos = 0;
+    private volatile ObjectName objectName = null;
 
     public WebCrawler(final Downloader downloader,
             final int downloaders,
             final int extractors,
             final int perHost) {
+        this(downloader, downloaders, extractors, perHost, 0, false, url -> 0);
+    }
+
+    /**
+     * Creates crawler with all options.
+     * <p>
+     * If {@code expectedUrls} is positive, visited urls are remembered in a Bloom filter sized for them instead of
+     * keeping every visited url. Visited urls then take constant memory per crawl, though downloaded pages and errors
+     * are still collected for the result, unless they are streamed to a listener. A url is claimed once, so such crawl
+     * goes level by level, in breadth-first order: pages of the next level are downloaded only when all pages of the
+     * current one are parsed. About one of a million urls is skipped as a false positive.
+     * <p>
+     * If {@code virtualThreads} is set, every download runs in its own virtual thread. At most {@code downloaders}
+     * downloads still run at once; waiting downloads hold no threads, so large limits do not need as many OS threads.
+     * <p>
+     * Waiting downloads of a host are ordered by {@code score} after remaining depth: of two urls with the same
+     * remaining depth, the one with higher score is downloaded first.
+     *
+     * @param downloader     downloader of pages
+     * @param downloaders    maximal number of concurrent downloads
+     * @param extractors     number of link extraction threads
+     * @param perHost        maximal number of concurrent downloads from one host
+     * @param expectedUrls   expected number of urls seen by one crawl, or zero to remember urls exactly
+     * @param virtualThreads whether downloads run in virtual threads instead of a fixed pool
+     * @param score          score of url
+     */
+    public WebCrawler(final Downloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final long expectedUrls,
+            final boolean virtualThreads,
+            final ToDoubleFunction<String> score) {
+        Objects.requireNonNull(score);
+        if (expectedUrls < 0) {
+            throw new IllegalArgumentException("Expected urls must be non-negative");
+        }
         extractorExecutorService = Executors.newFixedThreadPool(extractors);
-        downoloadExecutorService = Executors.newFixedThreadPool(downloaders);
-        this.perHost = perHost;
-        this.downloader = downloader;
+        downoloadExecutorService = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(downloaders);
+        this.frontier = new Frontier(downloader, downoloadExecutorService, downloaders, perHost, score);
+        this.expectedUrls = expectedUrls;
     }
 
     private static int getPositiveInt(final String[] args, final int index, final int defaultValue, final String name) {
@@ -70,10 +139,11 @@ public class WebCrawler implements AdvancedCrawler {
         try {
             final var depth = getPositiveInt(args, 1, 1, "depth");
             final var downloaders = getPositiveInt(args, 2, Integer.MAX_VALUE, "downloaders");
-            final var extractors = getPositiveInt(args, 3, Integer.MAX_VALUE, "extractors");
+            final var extractors = getPositiveInt(args, 3, Runtime.getRuntime().availableProcessors(),
+                    "extractors");
             final var perHost = getPositiveInt(args, 4, Integer.MAX_VALUE, "perHost");
-            try (final WebCrawler webCrawler =
-                    new WebCrawler(new CachingDownloader(0), downloaders, extractors, perHost)) {
+            try (final WebCrawler webCrawler = new WebCrawler(
+                    new CachingDownloader(0), downloaders, extractors, perHost, 0, true, ignored -> 0)) {
                 try {
                     printResult(webCrawler.download(url, depth));
                 } catch (final RuntimeException e) {
@@ -102,17 +172,220 @@ public class WebCrawler implements AdvancedCrawler {
 
     @Override
     public Result download(final String url, final int depth) {
-        return new DownloadAction().download(url, depth);
+        return new DownloadAction(null, null).download(url, depth);
     }
 
     public Result download(final String url, final int depth, final List<String> hosts) {
         Objects.requireNonNull(hosts);
         hosts.forEach(Objects::requireNonNull);
-        return new DownloadAction(hosts).download(url, depth);
+        return new DownloadAction(hosts, null).download(url, depth);
+    }
+
+    /**
+     * Downloads pages reachable from every seed like {@link #download(String, int)}, crawling all seeds at once.
+     * Seeds share visited pages, so a page reachable from several seeds is downloaded and parsed once.
+     * <p>
+     * Visited pages are remembered exactly, even if crawler was created with expected number of urls.
+     *
+     * @param seeds root urls
+     * @param depth crawl depth
+     * @return crawl result of every seed, in order of seeds
+     */
+    public Map<String, Result> download(final Collection<String> seeds, final int depth) {
+        seeds.forEach(Objects::requireNonNull);
+        return new DownloadAction(null, null, true).download(seeds, depth);
+    }
+
+    /**
+     * Downloads pages like {@link #download(String, int)}, but delivers every downloaded page and every error to
+     * {@code listener} as soon as it happens instead of collecting them. Delivered pages and errors are not kept.
+     * <p>
+     * At most {@code capacity} events wait for delivery. When listener falls behind, downloads and extractions wait
+     * for room, so a slow listener slows the crawl down instead of filling memory. If listener throws an exception,
+     * crawl stops scheduling new pages, drops the remaining events and the exception is rethrown.
+     * <p>
+     * Visited urls are still remembered until the crawl ends, together with links of pages that may be reached again
+     * with more depth. Only a crawler created with expected number of urls keeps memory of the crawl bounded by the
+     * widest level, as it remembers visited urls in a fixed-size Bloom filter.
+     *
+     * @param url      root url
+     * @param depth    crawl depth
+     * @param listener receiver of crawl events
+     * @param capacity maximal number of events waiting for delivery
+     */
+    public void download(final String url, final int depth, final CrawlListener listener, final int capacity) {
+        Objects.requireNonNull(url);
+        Objects.requireNonNull(listener);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        new DownloadAction(listener, capacity).stream(url, depth);
+    }
+
+    /**
+     * Downloads pages like {@link #download(String, int)}, recording progress in an append-only log. If the log is
+     * not empty, the crawl recorded in it is resumed: recorded pages are not downloaded again, except pages that were
+     * not completely processed.
+     *
+     * @param url   root url
+     * @param depth crawl depth
+     * @param log   path to crawl log
+     * @return crawl result, including pages and errors recorded in the log
+     * @throws IOException              if log can not be read or written
+     * @throws IllegalArgumentException if log belongs to a crawl with other root or depth
+     */
+    public Result download(final String url, final int depth, final Path log) throws IOException {
+        return download(url, depth, null, log);
+    }
+
+    /**
+     * Downloads pages of specified hosts like {@link #download(String, int, List)}, recording progress in an
+     * append-only log like {@link #download(String, int, Path)}.
+     *
+     * @param url   root url
+     * @param depth crawl depth
+     * @param hosts hosts to download pages from, or {@code null} for any hosts
+     * @param log   path to crawl log
+     * @return crawl result, including pages and errors recorded in the log
+     * @throws IOException              if log can not be read or written
+     * @throws IllegalArgumentException if log belongs to a crawl with other root or depth
+     */
+    public Result download(final String url, final int depth, final List<String> hosts, final Path log)
+            throws IOException {
+        Objects.requireNonNull(url);
+        if (hosts != null) {
+            hosts.forEach(Objects::requireNonNull);
+        }
+        try (final CrawlLog crawlLog = new CrawlLog(log, url, depth)) {
+            try {
+                return new DownloadAction(hosts, crawlLog).download(url, depth);
+            } catch (final RuntimeException e) {
+                // Failures to write the log arrive wrapped by the crawl stages they happened in
+                crawlLog.checkFailure();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public long getPagesDownloaded() {
+        return pagesDownloaded.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public double getPagesPerSecond() {
+        final long nanos;
+        synchronized (crawlTime) {
+            nanos = crawlNanos + (activeCrawls > 0 ? System.nanoTime() - crawlStart : 0);
+        }
+        return nanos == 0 ? 0 : pagesDownloaded.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public int getRunningDownloads() {
+        return frontier.metrics().values().stream().mapToInt(HostMetrics::running).sum();
+    }
+
+    @Override
+    public int getParkedDownloads() {
+        return frontier.metrics().values().stream().mapToInt(HostMetrics::parked).sum();
+    }
+
+    @Override
+    public int getRunningExtractions() {
+        return runningExtractions.get();
+    }
+
+    @Override
+    public long getExtractionNanos() {
+        return extractionNanos.sum();
+    }
+
+    @Override
+    public long getWaitNanos() {
+        return frontier.metrics().values().stream().mapToLong(HostMetrics::waitNanos).sum();
+    }
+
+    @Override
+    public String[] getHosts() {
+        return frontier.metrics().keySet().toArray(String[]::new);
+    }
+
+    @Override
+    public long[] getHostLatencyHistogram(final String host) {
+        final HostMetrics metrics = frontier.metrics(host);
+        return metrics == null ? new long[0] : metrics.latencyHistogram();
+    }
+
+    @Override
+    public int getHostLimit(final String host) {
+        final HostMetrics metrics = frontier.metrics(host);
+        return metrics == null ? 0 : metrics.limit();
+    }
+
+    /**
+     * Returns snapshot of crawl metrics, collected since this crawler was created.
+     *
+     * @return current metrics
+     */
+    public CrawlerMetrics getMetrics() {
+        final Map<String, HostMetrics> hosts = frontier.metrics();
+        return new CrawlerMetrics(
+                getPagesDownloaded(),
+                getErrors(),
+                getPagesPerSecond(),
+                hosts.values().stream().mapToInt(HostMetrics::running).sum(),
+                hosts.values().stream().mapToInt(HostMetrics::parked).sum(),
+                getRunningExtractions(),
+                getExtractionNanos(),
+                hosts.values().stream().mapToLong(HostMetrics::waitNanos).sum(),
+                Collections.unmodifiableMap(hosts)
+        );
+    }
+
+    /**
+     * Registers this crawler in the platform MBean server. Registration is removed on {@link #close()}.
+     *
+     * @return name of registered MBean
+     * @throws JMException if MBean can not be registered
+     */
+    public ObjectName registerMBean() throws JMException {
+        final ObjectName name = new ObjectName(WebCrawler.class.getPackageName()
+                + ":type=WebCrawler,name=crawler-" + INSTANCES.incrementAndGet());
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        objectName = name;
+        return name;
+    }
+
+    private void crawlStarted() {
+        synchronized (crawlTime) {
+            if (activeCrawls++ == 0) {
+                crawlStart = System.nanoTime();
+            }
+        }
+    }
+
+    private void crawlFinished() {
+        synchronized (crawlTime) {
+            if (--activeCrawls == 0) {
+                crawlNanos += System.nanoTime() - crawlStart;
+            }
+        }
     }
 
     @Override
     public void close() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (final JMException ignored) {
+            }
+        }
         final var services = List.of(extractorExecutorService, downoloadExecutorService);
         services.forEach(ExecutorService::shutdownNow);
         for (final ExecutorService executorService : services) {
@@ -130,95 +403,398 @@ public class WebCrawler implements AdvancedCrawler {
 
     }
 
+    /**
+     * Page reached by crawl. Links of the page are extracted once and followed again whenever the page is reached with
+     * more remaining depth than before, so pipelined crawl visits the same pages as a breadth-first one. This costs
+     * memory for links of every page that may still be reached with more depth, unlike the breadth-first crawl, which
+     * keeps only visited urls.
+     */
+    private static class Visit {
+
+        private CompletableFuture<Optional<List<String>>> links = null;
+        private int depth;
+
+        private Visit(final int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Returns links of the page, fetching them on the first call. Links are kept for later calls only if
+         * {@code keep} is set.
+         */
+        private synchronized CompletableFuture<Optional<List<String>>> links(
+                final Supplier<CompletableFuture<Optional<List<String>>>> fetch, final boolean keep) {
+            final CompletableFuture<Optional<List<String>>> result = links == null ? fetch.get() : links;
+            links = keep ? result : null;
+            return result;
+        }
+
+        private synchronized boolean raise(final int newDepth) {
+            if (newDepth <= depth) {
+                return false;
+            }
+            depth = newDepth;
+            return true;
+        }
+    }
+
+    /**
+     * Single crawl. Every extracted link is scheduled as soon as its page is parsed; the crawl is finished when no
+     * download or extraction is in flight.
+     */
     private class DownloadAction {
 
         private final List<String> hosts;
-        private final Set<String> downloaded = new HashSet<>();
+        private final Set<String> downloaded = ConcurrentHashMap.newKeySet();
         private final Map<String, IOException> errors = new ConcurrentHashMap<>();
+        private final Map<String, Visit> visits = new ConcurrentHashMap<>();
+        /**
+         * Page visited with this remaining depth is never reached with more, so its links are not kept. Batch crawl
+         * keeps links of all pages to collect results of seeds.
+         */
+        private int lastDepth = Integer.MAX_VALUE;
+        private final ConcurrentBloomFilter seen;
+        /**
+         * Pages claimed in Bloom filter but not fetched yet, by remaining depth. Levels are fetched one by one, so a
+         * page is first claimed with the most depth it is reached with, as in breadth-first order.
+         */
+        private final NavigableMap<Integer, Queue<String>> levels = new ConcurrentSkipListMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private final CrawlLog log;
+        private final CrawlListener listener;
+        private final BlockingQueue<Runnable> events = new LinkedBlockingQueue<>();
+        private final Semaphore eventSlots;
+        private volatile boolean stopped = false;
 
-        private DownloadAction() {
-            this.hosts = null;
+        private DownloadAction(final List<String> hosts, final CrawlLog log) {
+            this(hosts, log, false);
         }
 
-        private DownloadAction(final List<String> hosts) {
+        private DownloadAction(final List<String> hosts, final CrawlLog log, final boolean exact) {
             this.hosts = hosts;
+            this.log = log;
+            this.listener = null;
+            this.eventSlots = null;
+            this.seen = exact ? null : bloomFilter();
         }
 
-        private Optional<UrlDocument> downloadDocument(final String url) {
-            try {
-                final String host = URLUtils.getHost(url);
-                if (hosts != null && !hosts.contains(host)) {
-                    return Optional.empty();
-                }
-                hostLimit.computeIfAbsent(host, (ignore) -> new Semaphore(perHost));
-                hostLimit.get(host).acquire();
-                try {
-                    final var res = downloader.download(url);
-                    synchronized (downloaded) {
-                        downloaded.add(url);
-                    }
-                    return Optional.of(new UrlDocument(url, res));
-                } finally {
-                    hostLimit.get(host).release();
-                }
-            } catch (final IOException e) {
+        private DownloadAction(final CrawlListener listener, final int capacity) {
+            this.hosts = null;
+            this.log = null;
+            this.listener = listener;
+            this.eventSlots = new Semaphore(capacity);
+            this.seen = bloomFilter();
+        }
+
+        private ConcurrentBloomFilter bloomFilter() {
+            return expectedUrls > 0 ? new ConcurrentBloomFilter(expectedUrls, FALSE_POSITIVE_RATE) : null;
+        }
+
+        private void error(final String url, final IOException e) {
+            errorCount.increment();
+            if (listener != null) {
+                deliver(() -> listener.onError(url, e));
+            } else {
                 errors.put(url, e);
-                return Optional.empty();
+            }
+            if (log != null) {
+                log.error(url, e);
+            }
+        }
+
+        /**
+         * Passes event to the listening thread, waiting for room if too many events are not delivered yet.
+         */
+        private void deliver(final Runnable event) {
+            try {
+                eventSlots.acquire();
             } catch (final InterruptedException e) {
-                throw new RuntimeException(e);
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            if (stopped) {
+                eventSlots.release();
+                return;
+            }
+            events.add(event);
+        }
+
+        private CompletableFuture<Optional<UrlDocument>> downloadDocument(final String url, final int depth) {
+            final String host;
+            try {
+                host = URLUtils.getHost(url);
+            } catch (final IOException e) {
+                error(url, e);
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            if (hosts != null && !hosts.contains(host)) {
+                return CompletableFuture.completedFuture(Optional.empty());
             }
+            return frontier.download(host, url, depth)
+                    .handle((document, exception) -> {
+                        if (exception == null) {
+                            pagesDownloaded.increment();
+                            if (listener != null) {
+                                deliver(() -> listener.onDownloaded(url, document));
+                            } else {
+                                downloaded.add(url);
+                            }
+                            if (log != null) {
+                                log.download(url);
+                            }
+                            return Optional.of(new UrlDocument(url, document));
+                        }
+                        if (exception instanceof final IOException e) {
+                            error(url, e);
+                            return Optional.empty();
+                        }
+                        throw new CompletionException(exception);
+                    });
         }
 
         @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
         private Optional<List<String>> parseDocument(final Optional<UrlDocument> urlDocumentOpt) {
             return urlDocumentOpt.map(urlDocument -> {
+                runningExtractions.incrementAndGet();
+                final long start = System.nanoTime();
                 try {
                     return urlDocument.document.extractLinks();
                 } catch (final IOException e) {
-                    errors.put(urlDocument.url, e);
+                    error(urlDocument.url, e);
                     return null;
+                } finally {
+                    extractionNanos.add(System.nanoTime() - start);
+                    runningExtractions.decrementAndGet();
                 }
             });
         }
 
-        private void download(final Set<String> urls, final int depth) throws InterruptedException {
-            if (depth == 0) {
+        private void visit(final String url, final int depth) {
+            if (stopped) {
                 return;
             }
-            final Set<String> nextUrls = urls.stream()
-                    .map(url -> CompletableFuture.supplyAsync(() -> downloadDocument(url), downoloadExecutorService))
-                    .map(it -> it.thenApplyAsync(this::parseDocument, extractorExecutorService))
-                    .toList()
-                    .stream()
-                    .map(this::getAndSuppress)
-                    .toList()
-                    .stream()
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .flatMap(Collection::stream)
-                    .filter(o -> !downloaded.contains(o) && !errors.containsKey(o))
-                    .collect(Collectors.toSet());
+            // The first thread that sees url claims it, others only raise its depth
+            if (seen != null) {
+                if (seen.add(url)) {
+                    logVisit(url, depth);
+                    levels.computeIfAbsent(depth, ignored -> new ConcurrentLinkedQueue<>()).add(url);
+                }
+                return;
+            }
+            final Visit created = new Visit(depth);
+            final Visit visit = visits.putIfAbsent(url, created);
+            if (visit == null) {
+                logVisit(url, depth);
+                follow(url, created.links(() -> fetch(url, depth), depth < lastDepth), depth);
+            } else if (visit.raise(depth)) {
+                logVisit(url, depth);
+                follow(url, visit.links(() -> fetch(url, depth), depth < lastDepth), depth);
+            }
+        }
+
+        private void logVisit(final String url, final int depth) {
+            if (log != null) {
+                log.visit(url, depth);
+            }
+        }
+
+        private CompletableFuture<Optional<List<String>>> fetch(final String url, final int depth) {
+            final CompletableFuture<Optional<List<String>>> links = downloadDocument(url, depth)
+                    .thenApplyAsync(this::parseDocument, extractorExecutorService);
+            track(links);
+            return links;
+        }
+
+        private void follow(final String url, final CompletableFuture<Optional<List<String>>> links,
+                final int depth) {
+            final CompletableFuture<Void> followed = depth > 1
+                    ? links.thenAccept(linksOpt -> linksOpt.ifPresent(
+                            list -> list.forEach(link -> visit(link, depth - 1))))
+                    : links.thenRun(() -> {});
+            // Page is complete, when all its links are visited and logged
+            track(log == null ? followed : followed.thenRun(() -> log.follow(url, depth)));
+        }
+
+        /**
+         * Restores state recorded in log and visits pages, that were not completely processed.
+         */
+        private void resume() {
+            downloaded.addAll(log.downloaded());
+            errors.putAll(log.errors());
+            log.followed().forEach((url, depth) -> {
+                if (!log.pending().containsKey(url)) {
+                    if (seen != null) {
+                        seen.add(url);
+                    } else {
+                        visits.put(url, new Visit(depth));
+                    }
+                }
+            });
+            log.pending().forEach(this::visit);
+        }
+
+        /**
+         * Counts stage as in flight until it completes. Stages that schedule other stages increment the counter
+         * before they complete, so it drops to zero only when the whole crawl is done.
+         */
+        private void track(final CompletableFuture<?> stage) {
+            inFlight.incrementAndGet();
+            stage.whenComplete((ignored, exception) -> {
+                if (exception != null) {
+                    failure.compareAndSet(null, exception);
+                }
+                release();
+            });
+        }
+
+        private void release() {
+            if (inFlight.decrementAndGet() == 0 && !startLevel()) {
+                finished.complete(null);
+            }
+        }
+
+        /**
+         * Fetches pages claimed with the most remaining depth. Called only when nothing is in flight, so every page
+         * of the previous level is parsed and its links are claimed.
+         *
+         * @return {@code false} if there is no level to start
+         */
+        private boolean startLevel() {
+            final Map.Entry<Integer, Queue<String>> level = levels.pollLastEntry();
+            if (level == null || stopped) {
+                return false;
+            }
+            // Level holds the counter, so that pages finished early do not start the next one
+            inFlight.incrementAndGet();
+            try {
+                final int depth = level.getKey();
+                level.getValue().forEach(url -> follow(url, fetch(url, depth), depth));
+            } finally {
+                release();
+            }
+            return true;
+        }
 
-            download(nextUrls, depth - 1);
+        private void start(final String url, final int depth) {
+            // Links lead to other pages with less depth, root is not visited with more either
+            lastDepth = depth - 1;
+            if (log != null && log.resumed()) {
+                resume();
+            } else {
+                visit(url, depth);
+            }
         }
 
-        private <T> T getAndSuppress(final Future<T> it) {
+        private void await() {
             try {
-                return it.get();
+                finished.get();
             } catch (final InterruptedException | ExecutionException e) {
                 throw new RuntimeException(e);
             }
+            if (failure.get() != null) {
+                throw new RuntimeException(failure.get());
+            }
         }
 
         private Result download(final String url, final int depth) {
+            if (depth <= 0) {
+                return new Result(List.of(), Map.of());
+            }
+            crawlStarted();
+            try {
+                // Root visit holds the counter itself, as every other visit is held by the stage scheduling it
+                inFlight.incrementAndGet();
+                start(url, depth);
+                release();
+                await();
+            } finally {
+                crawlFinished();
+            }
+            return new Result(List.copyOf(downloaded), errors);
+        }
+
+        private Map<String, Result> download(final Collection<String> seeds, final int depth) {
+            if (depth > 0) {
+                crawlStarted();
+                try {
+                    inFlight.incrementAndGet();
+                    seeds.forEach(seed -> visit(seed, depth));
+                    release();
+                    await();
+                } finally {
+                    crawlFinished();
+                }
+            }
+            final Map<String, Result> results = new LinkedHashMap<>();
+            seeds.forEach(seed -> results.computeIfAbsent(seed, ignored -> result(seed, depth)));
+            return results;
+        }
+
+        /**
+         * Collects pages reachable from seed by walking links extracted during the finished crawl. Every page reached
+         * here was visited by the crawl with at least the same remaining depth, so its links are known.
+         */
+        private Result result(final String seed, final int depth) {
+            final List<String> pages = new ArrayList<>();
+            final Map<String, IOException> pageErrors = new HashMap<>();
+            final Set<String> reached = new HashSet<>(Set.of(seed));
+            List<String> layer = List.of(seed);
+            for (int remaining = depth; remaining > 0; remaining--) {
+                final List<String> next = new ArrayList<>();
+                for (final String url : layer) {
+                    if (downloaded.contains(url)) {
+                        pages.add(url);
+                    }
+                    final IOException e = errors.get(url);
+                    if (e != null) {
+                        pageErrors.put(url, e);
+                    }
+                    if (remaining > 1) {
+                        visits.get(url).links.join()
+                                .ifPresent(links -> links.stream().filter(reached::add).forEach(next::add));
+                    }
+                }
+                layer = next;
+            }
+            return new Result(pages, pageErrors);
+        }
+
+        private void stream(final String url, final int depth) {
+            if (depth <= 0) {
+                return;
+            }
+            crawlStarted();
             try {
-                download(Set.of(url), depth);
-                return new Result(List.copyOf(downloaded), errors);
+                // Root is visited in the pool, as this thread is the only one that frees room for events
+                track(CompletableFuture.runAsync(() -> start(url, depth), extractorExecutorService));
+                finished.thenRun(() -> events.add(END_OF_EVENTS));
+                Runnable event;
+                while ((event = events.take()) != END_OF_EVENTS) {
+                    eventSlots.release();
+                    event.run();
+                }
+                await();
             } catch (final InterruptedException e) {
+                stop();
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
+            } catch (final RuntimeException e) {
+                stop();
+                throw e;
+            } finally {
+                crawlFinished();
             }
         }
 
+        private void stop() {
+            stopped = true;
+            events.clear();
+            // Every waiting producer takes a permit, sees the stop and returns it to the next one
+            eventSlots.release();
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package info.kgeorgiy.ja.chulkov.crawler.benchmarks;
+
+import info.kgeorgiy.ja.chulkov.concurrent.benchmarks.CsvRows;
+import info.kgeorgiy.ja.chulkov.crawler.WebCrawler;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Measures {@link WebCrawler#download(String, int)} on a {@link SyntheticWebDownloader} over a grid of downloaders,
+ * extractors and perHost settings, with platform download threads and with virtual ones. Prints one CSV row per
+ * setting; pages and errors are the same in every row of a run.
+ */
+public class CrawlerBenchmark {
+
+    private static final long SEED = 42;
+    private static final int HOSTS = 16;
+    private static final int LINKS_PER_PAGE = 8;
+    private static final double LOCAL_LINKS = 0.5;
+    private static final double ERROR_RATE = 0.02;
+
+    private CrawlerBenchmark() {
+    }
+
+    private enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args {@code [pages [depth [latencyMillis [downloaders [extractors [perHost]]]]]]}, where the last three
+     *             are comma-separated lists
+     */
+    public static void main(final String[] args) {
+        final int pages = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        final int depth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final Duration latency = Duration.ofMillis(args.length > 2 ? Integer.parseInt(args[2]) : 5);
+        final int[] downloaders = args.length > 3 ? parseInts(args[3]) : new int[]{8, 64, 512};
+        final int[] extractors = args.length > 4 ? parseInts(args[4]) : new int[]{2, 8};
+        final int[] perHosts = args.length > 5 ? parseInts(args[5]) : new int[]{1, 4, 64};
+        final SyntheticWebDownloader web = new SyntheticWebDownloader(SEED, pages, HOSTS, LINKS_PER_PAGE,
+                LOCAL_LINKS, latency, ERROR_RATE);
+
+        System.out.println("mode,downloaders,extractors,perHost,pages,errors,millis,pagesPerSecond");
+        for (final Mode mode : Mode.values()) {
+            for (final int downloadersNum : downloaders) {
+                for (final int extractorsNum : extractors) {
+                    for (final int perHost : perHosts) {
+                        try (final WebCrawler crawler = new WebCrawler(web, downloadersNum, extractorsNum, perHost,
+                                0, mode == Mode.VIRTUAL, url -> 0)) {
+                            final long start = System.nanoTime();
+                            final Result result = crawler.download(web.url(0), depth);
+                            final double millis = (System.nanoTime() - start) / 1e6;
+                            CsvRows.print(System.out, mode, downloadersNum, extractorsNum, perHost,
+                                    result.getDownloaded().size(), result.getErrors().size(), Math.round(millis),
+                                    Math.round(result.getDownloaded().size() * 1e3 / millis));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] parseInts(final String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.chulkov.crawler.benchmarks;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic in-process {@link Downloader} of a synthetic web. Pages {@code http://hostH.test/pageP} are spread
+ * over hosts round-robin, and every page links to pages chosen by a hash of seed and page number. Each host has its
+ * own mean latency; latency of a page is exponentially distributed around it. Page failures are chosen by the same
+ * hash, so every run over the same parameters downloads the same pages and gets the same errors.
+ */
+public class SyntheticWebDownloader implements Downloader {
+
+    private static final String PREFIX = "http://host";
+    private static final String PAGE = ".test/page";
+
+    private final long seed;
+    private final int pages;
+    private final int hosts;
+    private final int linksPerPage;
+    private final double localLinks;
+    private final Duration meanLatency;
+    private final double errorRate;
+
+    /**
+     * Creates synthetic web.
+     *
+     * @param seed         seed of link graph, latencies and errors
+     * @param pages        number of pages
+     * @param hosts        number of hosts
+     * @param linksPerPage number of links on every page
+     * @param localLinks   fraction of links to pages of the same host
+     * @param meanLatency  mean download latency; host means vary from half to twice of it
+     * @param errorRate    fraction of pages failing to download, the same fraction fails to extract links
+     */
+    public SyntheticWebDownloader(final long seed, final int pages, final int hosts, final int linksPerPage,
+            final double localLinks, final Duration meanLatency, final double errorRate) {
+        if (pages <= 0 || hosts <= 0 || linksPerPage < 0) {
+            throw new IllegalArgumentException("Expected positive pages and hosts and non-negative links");
+        }
+        this.seed = seed;
+        this.pages = pages;
+        this.hosts = hosts;
+        this.linksPerPage = linksPerPage;
+        this.localLinks = localLinks;
+        this.meanLatency = meanLatency;
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Returns url of page.
+     *
+     * @param page page number
+     * @return page url
+     */
+    public String url(final int page) {
+        return PREFIX + page % hosts + PAGE + page;
+    }
+
+    @Override
+    public Document download(final String url) throws IOException {
+        final int page = page(url);
+        final int host = page % hosts;
+        final double hostFactor = Math.pow(2, 2 * uniform(host, -1) - 1);
+        final double pageFactor = -Math.log(1 - uniform(page, 1));
+        final long nanos = (long) (meanLatency.toNanos() * hostFactor * pageFactor);
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (uniform(page, 2) < errorRate) {
+            throw new IOException("Synthetic download error " + url);
+        }
+        return () -> links(url, page);
+    }
+
+    private List<String> links(final String url, final int page) throws IOException {
+        if (uniform(page, 3) < errorRate) {
+            throw new IOException("Synthetic extraction error " + url);
+        }
+        final List<String> links = new ArrayList<>(linksPerPage);
+        for (int i = 0; i < linksPerPage; i++) {
+            final int target = (int) (uniform(page, 4 + 2 * i) * pages);
+            if (uniform(page, 5 + 2 * i) < localLinks) {
+                // Same host: move target to the nearest page of this host
+                final int local = target - target % hosts + page % hosts;
+                links.add(url(local < pages ? local : page));
+            } else {
+                links.add(url(target));
+            }
+        }
+        return links;
+    }
+
+    private int page(final String url) throws IOException {
+        final int index = url.lastIndexOf(PAGE);
+        if (index < 0) {
+            throw new IOException("No such page " + url);
+        }
+        try {
+            final int page = Integer.parseInt(url.substring(index + PAGE.length()));
+            if (page < 0 || page >= pages) {
+                throw new IOException("No such page " + url);
+            }
+            return page;
+        } catch (final NumberFormatException e) {
+            throw new IOException("No such page " + url, e);
+        }
+    }
+
+    /**
+     * Returns deterministic uniform value in {@code [0, 1)} for key and stream.
+     */
+    private double uniform(final long key, final long stream) {
+        long hash = seed * 0x9E3779B97F4A7C15L + key * 0xC2B2AE3D27D4EB4FL + stream * 0x165667B19E3779F9L;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+}
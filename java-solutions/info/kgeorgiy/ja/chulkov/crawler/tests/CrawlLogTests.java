@@ -0,0 +1,114 @@
+package info.kgeorgiy.ja.chulkov.crawler.tests;
+
+import info.kgeorgiy.ja.chulkov.crawler.WebCrawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CrawlLogTests {
+
+    private static final int PAGES = 40;
+    private static final int DEPTH = 3;
+    private static final String PAGE = ".test/страница";
+    private static final Downloader DOWNLOADER = CrawlLogTests::download;
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("crawl-log");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (final var files = Files.list(directory)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Pages have non-ASCII urls and error messages, so truncation cuts multibyte characters too.
+     */
+    private static String url(final int page) {
+        return "http://h" + page % 3 + PAGE + page;
+    }
+
+    private static Document download(final String url) throws IOException {
+        final int page = Integer.parseInt(url.substring(url.indexOf(PAGE) + PAGE.length()));
+        if (page % 7 == 3) {
+            throw new IOException("ошибка загрузки " + page);
+        }
+        return () -> {
+            if (page % 11 == 5) {
+                throw new IOException("ошибка разбора " + page);
+            }
+            return IntStream.of(1, 3, 8).mapToObj(step -> url((page * 5 + step) % PAGES)).toList();
+        };
+    }
+
+    private static void assertSameResult(final String message, final Result expected, final Result actual) {
+        Assert.assertEquals(message, new HashSet<>(expected.getDownloaded()), new HashSet<>(actual.getDownloaded()));
+        Assert.assertEquals(message, expected.getDownloaded().size(), actual.getDownloaded().size());
+        Assert.assertEquals(message, messages(expected.getErrors()), messages(actual.getErrors()));
+    }
+
+    private static Map<String, String> messages(final Map<String, IOException> errors) {
+        final Map<String, String> messages = new TreeMap<>();
+        errors.forEach((url, exception) -> messages.put(url, exception.getMessage()));
+        return messages;
+    }
+
+    @Test
+    public void resumeTruncatedTest() throws IOException {
+        try (final WebCrawler crawler = new WebCrawler(DOWNLOADER, 4, 2, 2)) {
+            final Path full = directory.resolve("full.log");
+            final Result expected = crawler.download(url(0), DEPTH, full);
+            assertSameResult("without log", crawler.download(url(0), DEPTH), expected);
+            final byte[] bytes = Files.readAllBytes(full);
+            final Path truncated = directory.resolve("truncated.log");
+            for (int length = 0; length <= bytes.length; length++) {
+                Files.write(truncated, Arrays.copyOf(bytes, length));
+                final String message = "truncated to " + length + " of " + bytes.length;
+                assertSameResult(message, expected, crawler.download(url(0), DEPTH, truncated));
+                // Resumed log is complete again
+                assertSameResult(message, expected, crawler.download(url(0), DEPTH, truncated));
+            }
+        }
+    }
+
+    private static void checkRejected(final WebCrawler crawler, final String url, final int depth, final Path log)
+            throws IOException {
+        try {
+            crawler.download(url, depth, log);
+            Assert.fail("Log of other crawl accepted");
+        } catch (final IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void otherCrawlTest() throws IOException {
+        try (final WebCrawler crawler = new WebCrawler(DOWNLOADER, 4, 2, 2)) {
+            final Path log = directory.resolve("other.log");
+            crawler.download(url(0), DEPTH, log);
+            final byte[] before = Files.readAllBytes(log);
+            checkRejected(crawler, url(1), DEPTH, log);
+            checkRejected(crawler, url(0), DEPTH + 1, log);
+            Assert.assertArrayEquals(before, Files.readAllBytes(log));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package info.kgeorgiy.ja.chulkov.crawler.tests;
+
+import info.kgeorgiy.ja.chulkov.crawler.LruCachingDownloader;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LruCachingDownloaderTests {
+
+    private static final int THREADS = 16;
+    private static final int PAGES = 400;
+
+    private final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+    private final Downloader downloader = this::download;
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("lru-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (final var files = Files.list(directory)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static String url(final int page) {
+        return "http://h" + page % 5 + ".test/page" + page;
+    }
+
+    private static List<String> links(final String url) {
+        return List.of(url + "/a", url + "/b");
+    }
+
+    private Document download(final String url) {
+        downloads.computeIfAbsent(url, ignored -> new AtomicInteger()).incrementAndGet();
+        // Slow downloads let concurrent misses on the same url meet
+        try {
+            Thread.sleep(1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return () -> links(url);
+    }
+
+    private int downloaded() {
+        return downloads.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private static void check(final LruCachingDownloader cache, final String url) throws IOException {
+        Assert.assertEquals(url, links(url), cache.download(url).extractLinks());
+    }
+
+    private void concurrent(final long maxBytes, final Path spillDirectory)
+            throws InterruptedException, ExecutionException {
+        final LruCachingDownloader cache = new LruCachingDownloader(downloader, maxBytes, spillDirectory);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final List<Integer> order = new ArrayList<>(IntStream.range(0, PAGES).boxed().toList());
+                Collections.shuffle(order, new Random(thread));
+                futures.add(executor.submit(() -> {
+                    for (final int page : order) {
+                        check(cache, url(page));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        final String message = "max bytes " + maxBytes;
+        Assert.assertEquals(message, PAGES, downloads.size());
+        Assert.assertEquals(message, PAGES, downloaded());
+        final LruCachingDownloader.Stats stats = cache.stats();
+        Assert.assertEquals(message, PAGES, stats.misses());
+        Assert.assertEquals(message, THREADS * PAGES, stats.hits() + stats.diskHits() + stats.misses());
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException, ExecutionException {
+        concurrent(Long.MAX_VALUE, null);
+    }
+
+    @Test
+    public void concurrentSpillTest() throws InterruptedException, ExecutionException {
+        concurrent(2_000, directory);
+    }
+
+    @Test
+    public void concurrentEvictedSpillTest() throws InterruptedException, ExecutionException {
+        concurrent(0, directory);
+    }
+
+    @Test
+    public void spillTest() throws IOException {
+        final LruCachingDownloader cache = new LruCachingDownloader(downloader, 0, directory);
+        for (int page = 0; page < PAGES; page++) {
+            check(cache, url(page));
+        }
+        Assert.assertEquals(PAGES, downloaded());
+        final LruCachingDownloader.Stats spilled = cache.stats();
+        Assert.assertEquals(PAGES, spilled.evictions());
+        Assert.assertEquals(0, spilled.pages());
+        Assert.assertEquals(0, spilled.bytes());
+        try (final var files = Files.list(directory)) {
+            Assert.assertEquals(PAGES, files.count());
+        }
+
+        for (int page = 0; page < PAGES; page++) {
+            check(cache, url(page));
+        }
+        Assert.assertEquals("Spilled pages downloaded again", PAGES, downloaded());
+        Assert.assertEquals(PAGES, cache.stats().diskHits());
+
+        // Other cache reads pages spilled by this one
+        final LruCachingDownloader other = new LruCachingDownloader(downloader, Long.MAX_VALUE, directory);
+        for (int page = 0; page < PAGES; page++) {
+            check(other, url(page));
+        }
+        Assert.assertEquals(PAGES, downloaded());
+        Assert.assertEquals(PAGES, other.stats().diskHits());
+    }
+
+    @Test
+    public void evictionTest() throws IOException {
+        // Sizes are estimated by the cache, so they are measured by an unbounded one
+        final LruCachingDownloader probe = new LruCachingDownloader(downloader, Long.MAX_VALUE);
+        final Document document = probe.download(url(0));
+        final long unextracted = probe.stats().bytes();
+        document.extractLinks();
+        final long extracted = probe.stats().bytes();
+
+        // Room for one extracted page and one being downloaded
+        final LruCachingDownloader cache = new LruCachingDownloader(downloader, extracted + unextracted);
+        downloads.clear();
+        check(cache, url(1));
+        check(cache, url(2));
+        check(cache, url(1));
+        check(cache, url(3));
+        LruCachingDownloader.Stats stats = cache.stats();
+        Assert.assertEquals(2, stats.pages());
+        Assert.assertEquals(2 * extracted, stats.bytes());
+        Assert.assertEquals(1, stats.evictions());
+        Assert.assertEquals(3, stats.misses());
+        Assert.assertEquals(1, stats.hits());
+
+        // Page 2 was the least recently used one
+        check(cache, url(1));
+        check(cache, url(3));
+        Assert.assertEquals(3, downloaded());
+        check(cache, url(2));
+        Assert.assertEquals(2, downloads.get(url(2)).get());
+        stats = cache.stats();
+        Assert.assertEquals(stats.misses(), stats.pages() + stats.evictions());
+        Assert.assertTrue(stats.bytes() <= extracted + unextracted);
+    }
+
+    @Test
+    public void failedExtractionTest() throws IOException {
+        final LruCachingDownloader cache = new LruCachingDownloader(url -> {
+            downloads.computeIfAbsent(url, ignored -> new AtomicInteger()).incrementAndGet();
+            return () -> {
+                throw new IOException("Broken page " + url);
+            };
+        }, Long.MAX_VALUE);
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                cache.download(url(0)).extractLinks();
+                Assert.fail("Broken page extracted");
+            } catch (final IOException ignored) {
+            }
+            Assert.assertEquals("Broken page is cached", attempt, downloaded());
+            Assert.assertEquals(0, cache.stats().pages());
+            Assert.assertEquals(0, cache.stats().bytes());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package info.kgeorgiy.ja.chulkov.crawler.tests;
+
+import info.kgeorgiy.ja.chulkov.crawler.CrawlListener;
+import info.kgeorgiy.ja.chulkov.crawler.WebCrawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import info.kgeorgiy.java.advanced.crawler.URLUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WebCrawlerTests {
+
+    private static final int PAGES = 400;
+    private static final int DEPTH = 5;
+    private static final int DOWNLOADERS = 4;
+    private static final int EXTRACTORS = 2;
+    private static final int PER_HOST = 2;
+    private static final String PAGE = ".test/p";
+    private static final String INVALID_URL = "invalid url";
+
+    private static String url(final int page) {
+        return "http://h" + page % 4 + PAGE + page;
+    }
+
+    private static Document download(final String url) throws IOException {
+        final int page = Integer.parseInt(url.substring(url.indexOf(PAGE) + PAGE.length()));
+        if (page % 13 == 5) {
+            throw new IOException("Download failed " + url);
+        }
+        return () -> {
+            if (page % 17 == 3) {
+                throw new IOException("Extraction failed " + url);
+            }
+            return Stream.concat(
+                    IntStream.rangeClosed(1, 3).mapToObj(step -> url((page * 7 + step * 31) % PAGES)),
+                    Stream.of(INVALID_URL)
+            ).toList();
+        };
+    }
+
+    /**
+     * Sequential breadth-first crawl.
+     */
+    private static Result reference(final String url, final int depth) {
+        final List<String> downloaded = new ArrayList<>();
+        final Map<String, IOException> errors = new HashMap<>();
+        final Set<String> reached = new HashSet<>(Set.of(url));
+        List<String> layer = List.of(url);
+        for (int remaining = depth; remaining > 0; remaining--) {
+            final List<String> next = new ArrayList<>();
+            for (final String page : layer) {
+                try {
+                    URLUtils.getHost(page);
+                    final Document document = download(page);
+                    downloaded.add(page);
+                    // Links of the last layer are extracted too, so their errors are reported
+                    final List<String> links = document.extractLinks();
+                    if (remaining > 1) {
+                        links.stream().filter(reached::add).forEach(next::add);
+                    }
+                } catch (final IOException e) {
+                    errors.put(page, e);
+                }
+            }
+            layer = next;
+        }
+        return new Result(downloaded, errors);
+    }
+
+    private static void assertSameResult(final String message, final Result expected, final Result actual) {
+        Assert.assertEquals(message, new HashSet<>(expected.getDownloaded()), new HashSet<>(actual.getDownloaded()));
+        Assert.assertEquals(message, expected.getDownloaded().size(), actual.getDownloaded().size());
+        Assert.assertEquals(message, expected.getErrors().keySet(), actual.getErrors().keySet());
+    }
+
+    private static WebCrawler crawler(final Downloader downloader) {
+        return new WebCrawler(downloader, DOWNLOADERS, EXTRACTORS, PER_HOST);
+    }
+
+    @Test
+    public void streamingTest() {
+        final Result expected = reference(url(0), DEPTH);
+        final Thread caller = Thread.currentThread();
+        try (final WebCrawler crawler = crawler(WebCrawlerTests::download)) {
+            for (final int capacity : new int[]{1, 4, 1000}) {
+                final List<String> downloaded = new ArrayList<>();
+                final Map<String, IOException> errors = new HashMap<>();
+                crawler.download(url(0), DEPTH, new CrawlListener() {
+                    @Override
+                    public void onDownloaded(final String url, final Document document) {
+                        Assert.assertSame("Event delivered in other thread", caller, Thread.currentThread());
+                        downloaded.add(url);
+                    }
+
+                    @Override
+                    public void onError(final String url, final IOException exception) {
+                        Assert.assertSame("Event delivered in other thread", caller, Thread.currentThread());
+                        errors.put(url, exception);
+                    }
+                }, capacity);
+                assertSameResult("capacity " + capacity, expected, new Result(downloaded, errors));
+            }
+        }
+    }
+
+    @Test
+    public void backpressureTest() {
+        final AtomicInteger started = new AtomicInteger();
+        final Downloader downloader = url -> {
+            started.incrementAndGet();
+            return download(url);
+        };
+        try (final WebCrawler crawler = crawler(downloader)) {
+            for (final int capacity : new int[]{1, 4}) {
+                started.set(0);
+                final AtomicInteger delivered = new AtomicInteger();
+                final AtomicInteger ahead = new AtomicInteger();
+                final Runnable slowEvent = () -> {
+                    ahead.accumulateAndGet(started.get() - delivered.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                };
+                crawler.download(url(0), DEPTH, new CrawlListener() {
+                    @Override
+                    public void onDownloaded(final String url, final Document document) {
+                        slowEvent.run();
+                    }
+
+                    @Override
+                    public void onError(final String url, final IOException exception) {
+                        slowEvent.run();
+                    }
+                }, capacity);
+                // Every download ahead of the listener either waits for delivery or holds a download thread
+                Assert.assertTrue("Downloads ahead of listener: " + ahead.get(),
+                        ahead.get() <= capacity + DOWNLOADERS);
+            }
+        }
+    }
+
+    private static void checkListenerException(final WebCrawler crawler, final boolean onError) {
+        final RuntimeException thrown = new IllegalStateException("Listener failed");
+        final AtomicInteger events = new AtomicInteger();
+        final AtomicInteger afterThrow = new AtomicInteger();
+        final Runnable event = () -> {
+            final int index = events.incrementAndGet();
+            if (index > 5) {
+                afterThrow.incrementAndGet();
+            } else if (index == 5) {
+                throw thrown;
+            }
+        };
+        try {
+            crawler.download(url(0), DEPTH, new CrawlListener() {
+                @Override
+                public void onDownloaded(final String url, final Document document) {
+                    if (!onError) {
+                        event.run();
+                    }
+                }
+
+                @Override
+                public void onError(final String url, final IOException exception) {
+                    if (onError) {
+                        event.run();
+                    }
+                }
+            }, 2);
+            Assert.fail("Listener exception is not rethrown");
+        } catch (final IllegalStateException e) {
+            Assert.assertSame(thrown, e);
+        }
+        Assert.assertEquals("Events delivered after listener exception", 0, afterThrow.get());
+    }
+
+    @Test
+    public void listenerExceptionTest() {
+        try (final WebCrawler crawler = crawler(WebCrawlerTests::download)) {
+            checkListenerException(crawler, false);
+            checkListenerException(crawler, true);
+            // Stopped crawls leave crawler usable
+            assertSameResult("after listener exceptions", reference(url(0), DEPTH), crawler.download(url(0), DEPTH));
+        }
+    }
+
+    @Test
+    public void batchTest() {
+        final List<String> seeds = List.of(url(0), url(7), url(13), url(0), url(55), INVALID_URL);
+        final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+        final Downloader downloader = url -> {
+            downloads.computeIfAbsent(url, ignored -> new AtomicInteger()).incrementAndGet();
+            return download(url);
+        };
+        // Batch crawl remembers pages exactly, even if crawler was created with expected number of urls
+        for (final WebCrawler crawler : List.of(crawler(downloader),
+                new WebCrawler(downloader, DOWNLOADERS, EXTRACTORS, PER_HOST, 1000, false, url -> 0))) {
+            try (crawler) {
+                for (int depth = 1; depth <= DEPTH; depth++) {
+                    downloads.clear();
+                    final Map<String, Result> results = crawler.download(seeds, depth);
+                    Assert.assertEquals(List.copyOf(new LinkedHashSet<>(seeds)), List.copyOf(results.keySet()));
+                    for (final String seed : seeds) {
+                        assertSameResult(seed + " at depth " + depth, reference(seed, depth), results.get(seed));
+                    }
+                    downloads.forEach((url, count) -> Assert.assertEquals("Downloads of " + url, 1, count.get()));
+                }
+            }
+        }
+    }
+}
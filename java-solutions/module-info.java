@@ -11,11 +11,15 @@ module info.kgeorgiy.ja.chulkov {
     requires info.kgeorgiy.java.advanced.crawler;
     requires info.kgeorgiy.java.advanced.hello;
     requires java.compiler;
+    requires java.management;
     requires java.rmi;
     requires jdk.httpserver;
     requires transitive junit;
 
     exports info.kgeorgiy.ja.chulkov.concurrent;
+    exports info.kgeorgiy.ja.chulkov.concurrent.tests;
+    exports info.kgeorgiy.ja.chulkov.crawler;
+    exports info.kgeorgiy.ja.chulkov.crawler.tests;
     exports info.kgeorgiy.ja.chulkov.implementor;
     exports info.kgeorgiy.ja.chulkov.arrayset;
     exports info.kgeorgiy.ja.chulkov.student;
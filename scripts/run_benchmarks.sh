@@ -0,0 +1,23 @@
+#!/usr/bin/env sh
+# Runs ConcurrentBenchmarkSuite and writes CSV to the given file.
+# Requires JDK 21 or later (sources use virtual threads) and java-advanced-2023 checked out next to this repository.
+path=$(cd ..; pwd)
+modules=$(cd ../..; pwd)/java-advanced-2023/modules
+modele_pref=$modules/info.kgeorgiy.java.advanced.
+out=${1:-"$path/benchmarks-$(date +%Y%m%d-%H%M%S).csv"}
+[ $# -gt 0 ] && shift
+
+version=$(javac -version 2>&1 | sed -n 's/^javac \([0-9]*\).*/\1/p')
+if [ -z "$version" ] || [ "$version" -lt 21 ]; then
+  echo "JDK 21 or later is required, found: $(javac -version 2>&1)" >&2
+  exit 1
+fi
+
+javac -d "$(pwd)" \
+  "$path"/java-solutions/info/kgeorgiy/ja/chulkov/concurrent/*.java \
+  "$path"/java-solutions/info/kgeorgiy/ja/chulkov/concurrent/benchmarks/ConcurrentBenchmarkSuite.java \
+  -cp "$path/java-solutions:${modele_pref}concurrent:${modele_pref}mapper:$path/lib/*" || exit 1
+java -cp ".:$path/lib/*" info.kgeorgiy.ja.chulkov.concurrent.benchmarks.ConcurrentBenchmarkSuite "$out" "$@"
+exitcode=$?
+rm -r info
+exit $exitcode